@@ -0,0 +1,46 @@
+package benchmarks;
+
+import memory.types.Staff;
+import memory.types.Story;
+import org.openjdk.jmh.annotations.*;
+import reports.ReportFormat;
+import sections.Counter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counter.run end to end, tally through to a TSV report, on rosters from a club to a district.
+ * The report goes to a null stream so the terminal is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CounterBenchmark {
+    @Param({"50", "500", "5000", "50000"})
+    public int authors;
+
+    @Param({"20"})
+    public int storiesPerAuthor;
+
+    private ArrayList<Staff> staffList;
+    private ArrayList<Story> storyList;
+
+    @Setup
+    public void setup() {
+        staffList = Rosters.staff(authors);
+        storyList = Rosters.stories(authors, authors * storiesPerAuthor, 6);
+    }
+
+    @Benchmark
+    public Counter run() throws IOException {
+        Counter counter = new Counter(staffList, storyList);
+        counter.run(ReportFormat.TSV.open(OutputStream.nullOutputStream()));
+        return counter;
+    }
+}
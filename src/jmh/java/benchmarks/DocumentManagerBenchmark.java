@@ -0,0 +1,113 @@
+package benchmarks;
+
+import memory.DocumentManager;
+import memory.StoreFormat;
+import memory.types.Date;
+import memory.types.Mark;
+import memory.types.Story;
+import org.jdom2.JDOMException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loading and saving the memory in every store format. Each trial works in its own temporary
+ * directory, so the memory files of a real run are never touched.
+ * <p>
+ * Saving is measured two ways: replacing the whole story list, as a full refresh does, and appending
+ * one new story per author, as a nightly incremental refresh does. Both write on every invocation;
+ * the journal and SQLite stores skip a save when nothing changed, so saving an unchanged list
+ * would only time that check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DocumentManagerBenchmark {
+    @Param({"XML", "BINARY", "JOURNAL", "SQLITE"})
+    public StoreFormat format;
+
+    @Param({"50", "5000", "50000"})
+    public int authors;
+
+    @Param({"20"})
+    public int storiesPerAuthor;
+
+    private File directory;
+    private DocumentManager documentManager;
+    private ArrayList<Story> stories;
+    private ArrayList<Mark> marks;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, JDOMException {
+        directory = Files.createTempDirectory("torch-bench").toFile();
+        documentManager = new DocumentManager(format, directory);
+        documentManager.addStaffList(Rosters.staff(authors));
+        documentManager.saveStaff();
+
+        stories = Rosters.stories(authors, authors * storiesPerAuthor, 6);
+        marks = new ArrayList<>();
+        for (int i = 0; i < authors; i++) {
+            marks.add(new Mark(stories.get(i)));
+        }
+        documentManager.replaceStories(stories, marks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        documentManager.close();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public DocumentManager load() throws IOException, JDOMException {
+        documentManager.create();
+        return documentManager;
+    }
+
+    @Benchmark
+    public DocumentManager replace() throws IOException {
+        documentManager.replaceStories(stories, marks);
+        return documentManager;
+    }
+
+    @Benchmark
+    public DocumentManager append(Batch batch) throws IOException {
+        documentManager.saveStories();
+        return documentManager;
+    }
+
+    /**
+     * One new story per author, added before each append. Each iteration starts again from the trial's
+     * stories, so the list only grows by the batches of a single iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class Batch {
+        private ArrayList<Story> batch;
+
+        @Setup(Level.Iteration)
+        public void reset(DocumentManagerBenchmark memory) throws IOException {
+            batch = new ArrayList<>(memory.authors);
+            for (int i = 0; i < memory.authors; i++) {
+                batch.add(new Story(Rosters.FIRST_STAFF_ID + i, "New story " + i, new Date(6, 24)));
+            }
+            memory.documentManager.replaceStories(memory.stories, memory.marks);
+        }
+
+        @Setup(Level.Invocation)
+        public void add(DocumentManagerBenchmark memory) {
+            memory.documentManager.addStoryList(batch);
+        }
+    }
+}
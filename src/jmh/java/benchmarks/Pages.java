@@ -0,0 +1,35 @@
+package benchmarks;
+
+/**
+ * Builds edit.php-shaped pages so the parsing benchmarks can run offline
+ */
+public class Pages {
+    private static final String ROW_PADDING = "<td class=\"categories column-categories\">News</td>".repeat(12);
+
+    public static String body(int pages, int postsPerPage) {
+        StringBuilder builder = new StringBuilder();
+        for (int page = 0; page < pages; page++) {
+            builder.append("<html><body><table class=\"wp-list-table\"><tbody id=\"the-list\">");
+            for (int post = 0; post < postsPerPage; post++) {
+                int id = page * postsPerPage + post;
+                builder.append("<tr id=\"post-").append(id).append("\"><td>")
+                        .append("<div class=\"hidden\" id=\"inline_").append(id).append("\">")
+                        .append("<div class=\"post_title\">Story &amp; Title Number ").append(id).append("</div>")
+                        .append("<div class=\"post_name\">story-").append(id).append("</div>")
+                        .append("<div class=\"post_author\">117</div>")
+                        .append("<div class=\"comment_status\">open</div>")
+                        .append("<div class=\"ping_status\">open</div>")
+                        .append("<div class=\"_status\">").append(id % 7 == 0 ? "draft" : "publish").append("</div>")
+                        .append("<div class=\"jj\">14</div>")
+                        .append("<div class=\"mm\">").append(String.format("%02d", id % 12 + 1)).append("</div>")
+                        .append("<div class=\"aa\">").append(2023 + id % 2).append("</div>")
+                        .append("<div class=\"hh\">09</div><div class=\"mn\">30</div><div class=\"ss\">00</div>")
+                        .append("</div></td>")
+                        .append(ROW_PADDING)
+                        .append("</tr>");
+            }
+            builder.append("</tbody></table><div class=\"tablenav-pages\"> </div></body></html>");
+        }
+        return builder.toString();
+    }
+}
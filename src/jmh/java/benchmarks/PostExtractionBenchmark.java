@@ -0,0 +1,44 @@
+package benchmarks;
+
+import memory.types.Date;
+import memory.types.Story;
+import org.openjdk.jmh.annotations.*;
+import sections.Fixtures;
+import sections.PostTokenizer;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What StoryScraper does with each fetched page: find every post, skip drafts, unescape the title
+ * and build the Story.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PostExtractionBenchmark {
+    @Param({"edit-empty.html", "edit-5.html", "edit-20.html", "edit-100.html"})
+    public String fixture;
+
+    private String page;
+
+    @Setup
+    public void setup() {
+        page = Fixtures.page(fixture);
+    }
+
+    @Benchmark
+    public ArrayList<Story> extract() {
+        ArrayList<Story> stories = new ArrayList<>();
+        PostTokenizer posts = new PostTokenizer(page);
+        while (posts.next()) {
+            if (!posts.isDraft()) {
+                stories.add(new Story(117, posts.unescapedTitle(), new Date(posts.month(), posts.year())));
+            }
+        }
+        return stories;
+    }
+}
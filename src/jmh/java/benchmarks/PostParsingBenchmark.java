@@ -0,0 +1,72 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sections.PostTokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original indexOf/substring/split loop from StoryScraper.scrape
+ * against the single-pass PostTokenizer on concatenated multi-page bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PostParsingBenchmark {
+    @Param({"1", "5", "20"})
+    public int pages;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        body = Pages.body(pages, 20);
+    }
+
+    @Benchmark
+    public void substringLoop(Blackhole blackhole) {
+        String responseBody = body;
+        while (responseBody.contains("post_title")) {
+            String postSep = "<div class=\"post_title\">";
+            int postSepPos = responseBody.indexOf(postSep);
+            if (postSepPos == -1) {
+                break;
+            }
+            int postLength = postSepPos + postSep.length();
+            String[] split = responseBody.substring(postLength, postLength + 500).split("<", 2);
+            blackhole.consume(split[0]);
+
+            String draftSep = "<div class=\"_status\">";
+            int draftSepPos = split[1].indexOf(draftSep);
+            int draftLength = draftSepPos + draftSep.length();
+            blackhole.consume(split[1].substring(draftLength).split("<", 2)[0]);
+
+            String yearSep = "<div class=\"aa\">";
+            int yearSepPos = split[1].indexOf(yearSep);
+            int yearLength = yearSepPos + yearSep.length();
+            blackhole.consume(Integer.parseInt(split[1].substring(yearLength).split("<", 2)[0].substring(2, 4)));
+
+            String monthSep = "<div class=\"mm\">";
+            int monthSepPos = split[1].indexOf(monthSep);
+            int monthLength = monthSepPos + monthSep.length();
+            blackhole.consume(Integer.parseInt(split[1].substring(monthLength).split("<", 2)[0]));
+
+            responseBody = responseBody.substring(postSepPos + 500);
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        PostTokenizer posts = new PostTokenizer(body);
+        while (posts.next()) {
+            blackhole.consume(posts.title());
+            blackhole.consume(posts.isDraft());
+            blackhole.consume(posts.year());
+            blackhole.consume(posts.month());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import memory.types.Date;
+import memory.types.Staff;
+import memory.types.Story;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Builds synthetic staff and story lists with a fixed seed, so every run measures the same data
+ */
+public class Rosters {
+    public static final int FIRST_STAFF_ID = 100;
+
+    public static ArrayList<Staff> staff(int authors) {
+        ArrayList<Staff> staffList = new ArrayList<>(authors);
+        for (int i = 0; i < authors; i++) {
+            staffList.add(new Staff(FIRST_STAFF_ID + i, "Staff" + i + " Member" + i));
+        }
+        return staffList;
+    }
+
+    /**
+     * @param years How many school years, ending with 2023-24, the stories are spread across
+     */
+    public static ArrayList<Story> stories(int authors, int stories, int years) {
+        Random random = new Random(259);
+        ArrayList<Story> storyList = new ArrayList<>(stories);
+        for (int i = 0; i < stories; i++) {
+            int month = 1 + random.nextInt(12);
+            int year = 24 - random.nextInt(years) - (month >= 8 ? 1 : 0);
+            storyList.add(new Story(FIRST_STAFF_ID + random.nextInt(authors), "Story " + i, new Date(month, year)));
+        }
+        return storyList;
+    }
+}
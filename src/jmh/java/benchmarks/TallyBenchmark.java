@@ -0,0 +1,46 @@
+package benchmarks;
+
+import memory.types.Staff;
+import memory.types.Story;
+import org.openjdk.jmh.annotations.*;
+import sections.Tally;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serial against fork-join tallying across archive sizes, to find where parallel starts to pay off
+ * and keep Tally.PARALLEL_THRESHOLD honest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TallyBenchmark {
+    @Param({"10000", "50000", "100000", "200000", "500000", "1000000"})
+    public int stories;
+
+    @Param({"200"})
+    public int authors;
+
+    private ArrayList<Staff> staffList;
+    private ArrayList<Story> storyList;
+
+    @Setup
+    public void setup() {
+        staffList = Rosters.staff(authors);
+        storyList = Rosters.stories(authors, stories, 6);
+    }
+
+    @Benchmark
+    public Tally serial() {
+        return Tally.of(staffList, storyList, false);
+    }
+
+    @Benchmark
+    public Tally parallel() {
+        return Tally.of(staffList, storyList, true);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sections.Fixtures;
+import sections.PostTokenizer;
+import utilities.Unescaper;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unescaping the titles of a recorded listing, and titles with no entities at all,
+ * which is the case the fast path has to keep cheap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UnescaperBenchmark {
+    @Param({"plain", "recorded"})
+    public String titles;
+
+    private String[] input;
+
+    @Setup
+    public void setup() {
+        ArrayList<String> found = new ArrayList<>();
+        PostTokenizer posts = new PostTokenizer(Fixtures.page("edit-100.html"));
+        while (posts.next()) {
+            String title = posts.title();
+            found.add(titles.equals("plain") ? title.replaceAll("&[#\\w]+;", "") : title);
+        }
+        input = found.toArray(new String[0]);
+    }
+
+    private final StringBuilder builder = new StringBuilder();
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public void unescape(Blackhole blackhole) {
+        for (String title : input) {
+            blackhole.consume(Unescaper.unescape(title));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public void unescapeInto(Blackhole blackhole) {
+        for (String title : input) {
+            builder.setLength(0);
+            blackhole.consume(Unescaper.unescape(title, 0, title.length(), builder));
+        }
+    }
+}
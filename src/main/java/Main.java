@@ -1,5 +1,7 @@
 import org.jdom2.JDOMException;
 import sections.Assessor;
+import utilities.Config;
+import utilities.LogLevel;
 import utilities.Logger;
 import utilities.SectionName;
 
@@ -8,6 +10,12 @@ import java.net.URISyntaxException;
 
 public class Main {
     public static void main(String[] args) throws IOException, URISyntaxException, JDOMException {
+        Config config = Config.parse(args);
+        for (SectionName section : SectionName.values()) {
+            String level = config.get("log." + section.name().toLowerCase(), config.get("log.level", null));
+            if (level != null) Logger.setLevel(section, LogLevel.valueOf(level.trim().toUpperCase()));
+        }
+
         String message = """
                 ╔════════════════════════════════════════════════════════════════════════════════════════════════════════════════════════╗
                 ║                                                                                                                        ║
@@ -29,7 +37,7 @@ public class Main {
 
         Logger.log(SectionName.PROGRAM, "Welcome to the Torch Scraper.");
 
-        Assessor assessor = new Assessor();
+        Assessor assessor = new Assessor(config);
         assessor.run();
 
         Logger.log(SectionName.PROGRAM, "Finish");
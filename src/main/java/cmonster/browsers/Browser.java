@@ -3,15 +3,24 @@ package cmonster.browsers;
 import cmonster.cookies.Cookie;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public abstract class Browser {
 
 	/**
-	 * A file that should be used to make a temporary copy of the browser's cookie store
+	 * Where this browser's cookie stores were found, and which ones held nothing, on earlier runs
 	 */
-	final File cookieStoreCopy = new File(".cookies.db");
+	final CookieStoreIndex cookieStoreIndex = new CookieStoreIndex();
 
 	@Override
 	public String toString() {
@@ -20,15 +29,85 @@ public abstract class Browser {
 
 	/**
 	 * Returns cookies for a given domain
+	 *
+	 * @throws IOException If any cookie store could not be read, rather than returning only some of the cookies
 	 */
-	public Set<Cookie> getCookiesForDomain(String domain) {
+	public Set<Cookie> getCookiesForDomain(String domain) throws IOException {
 		HashSet<Cookie> cookies = new HashSet<>();
-		for (File cookieStore : getCookieStores()) {
-			cookies.addAll(processCookies(cookieStore, domain));
+		try {
+			Set<File> found = getCookieStores();
+			scanStores(found, domain, cookies);
+			if (cookies.isEmpty() && cookieStoreIndex.forgetDiscoveries()) {
+				// a store created inside an existing profile leaves the walked directory's mtime alone, so walk again
+				Set<File> rediscovered = new HashSet<>(getCookieStores());
+				rediscovered.removeAll(found);
+				scanStores(rediscovered, domain, cookies);
+			}
+		} finally {
+			// whatever was read successfully is still worth remembering
+			cookieStoreIndex.save();
 		}
 		return cookies;
 	}
 
+	private void scanStores(Set<File> found, String domain, HashSet<Cookie> cookies) throws IOException {
+		ArrayList<File> cookieStores = new ArrayList<>();
+		for (File cookieStore : found) {
+			if (!cookieStoreIndex.isKnownEmpty(cookieStore, domain)) cookieStores.add(cookieStore);
+		}
+
+		if (cookieStores.size() <= 1) {
+			for (File cookieStore : cookieStores) {
+				cookies.addAll(scan(cookieStore, domain));
+			}
+		} else {
+			scanAll(cookieStores, domain, cookies);
+		}
+	}
+
+	private void scanAll(ArrayList<File> cookieStores, String domain, HashSet<Cookie> cookies) throws IOException {
+		// every store gets its own connection, so profiles are read side by side
+		int threads = Math.min(cookieStores.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "cookie-store");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			ArrayList<Future<Set<Cookie>>> scans = new ArrayList<>();
+			for (File cookieStore : cookieStores) {
+				scans.add(executor.submit(() -> scan(cookieStore, domain)));
+			}
+			for (Future<Set<Cookie>> scan : scans) {
+				cookies.addAll(scan.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading cookie stores", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) throw ioException;
+			throw new IOException("Failed to read a cookie store", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads one store, and only once that has worked records what it held, so a store that could not be
+	 * read this time (locked, say) is not taken for an empty one on later runs
+	 */
+	private Set<Cookie> scan(File cookieStore, String domain) throws IOException {
+		long modified = CookieStoreIndex.lastWritten(cookieStore);
+		Set<Cookie> cookies;
+		try {
+			cookies = processCookies(cookieStore, domain);
+		} catch (SQLException e) {
+			throw new IOException("Could not read cookies from " + cookieStore, e);
+		}
+		cookieStoreIndex.record(cookieStore, domain, modified, cookies.size());
+		return cookies;
+	}
+
 	/**
 	 * Returns a set of cookie store locations
 	 *
@@ -43,8 +122,34 @@ public abstract class Browser {
 	 * @param cookieStore Cookie's cookie store
 	 * @param domainFilter Domain filter for processing
 	 * @return Cookie store
+	 * @throws SQLException If the store could not be read
+	 */
+	protected abstract Set<Cookie> processCookies(File cookieStore, String domainFilter) throws SQLException;
+
+	/**
+	 * Opens a browser's cookie database in place, read-only, so nothing is copied and nothing is left behind.
+	 * Immutable mode tells SQLite the file will not change underneath it, so it takes no locks and never touches
+	 * the browser's journal; like the copy this replaces, it sees only what the browser has written into the main file.
+	 *
+	 * @param cookieStore The database file
+	 * @return A connection the caller must close
 	 */
-	protected abstract Set<Cookie> processCookies(File cookieStore, String domainFilter);
+	static Connection openCookieStore(File cookieStore) throws SQLException {
+		try {
+			// load the sqlite-JDBC driver using the current class loader
+			Class.forName("org.sqlite.JDBC");
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("SQLite driver not found", e);
+		}
+		return DriverManager.getConnection("jdbc:sqlite:" + cookieStore.toPath().toUri() + "?mode=ro&immutable=1");
+	}
+
+	/**
+	 * A LIKE pattern matching any value that contains the given text, with LIKE's wildcards in the text escaped by a backslash
+	 */
+	static String containsPattern(String text) {
+		return "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	}
 
 	/**
 	 * Returns the browser proper name
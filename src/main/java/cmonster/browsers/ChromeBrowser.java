@@ -8,12 +8,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.jna.platform.win32.Crypt32Util;
 
-import javax.crypto.Cipher;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
@@ -36,11 +30,14 @@ import java.util.stream.Stream;
  *
  * @author Ben Holland
  */
-@SuppressWarnings({"ResultOfMethodCallIgnored", "JavadocLinkAsPlainText"})
+@SuppressWarnings("JavadocLinkAsPlainText")
 public class ChromeBrowser extends Browser {
+    // Milliseconds from 1601-01-01 to 1970-01-01
+    private static final long WINDOWS_EPOCH_OFFSET = 11644473600000L;
 
-    private String chromeKeyringPassword = null;
     private byte[] windowsMasterKey;
+    private ChromeCookieCipher cookieCipher;
+
     public ChromeBrowser() {
         super();
 
@@ -124,7 +121,8 @@ public class ChromeBrowser extends Browser {
      */
     private List<File> getCookieDbFiles(String baseDir) {
         File filePath = new File(baseDir);
-        if (filePath.exists() && filePath.isDirectory()) {
+        // the walk covers every profile, so it is only repeated once a profile comes or goes
+        return cookieStoreIndex.discover(filePath, () -> {
             try (Stream<Path> paths = Files.walk(filePath.toPath())) {
                 return paths.filter(path -> path.getFileName().toString().endsWith("Cookies"))
                         .map(Path::toFile)
@@ -132,44 +130,35 @@ public class ChromeBrowser extends Browser {
             } catch (IOException e) {
                 return List.of();
             }
-        } else {
-            return List.of();
-        }
+        });
     }
 
     /**
      * Processes all cookies in the cookie store for a given domain or all
      * domains if domainFilter is null/empty
      */
-    @SuppressWarnings("CallToPrintStackTrace")
     @Override
-    protected Set<Cookie> processCookies(File cookieStore, String domainFilter) {
+    protected Set<Cookie> processCookies(File cookieStore, String domainFilter) throws SQLException {
         HashSet<Cookie> cookies = new HashSet<>();
         if (cookieStore.exists()) {
             Connection connection = null;
             try {
-                cookieStoreCopy.delete();
-                Files.copy(cookieStore.toPath(), cookieStoreCopy.toPath());
-                // load the sqlite-JDBC driver using the current class loader
-                Class.forName("org.sqlite.JDBC");
-                // create a database connection
-                connection = DriverManager.getConnection("jdbc:sqlite:" + cookieStoreCopy.getAbsolutePath());
-                Statement statement = connection.createStatement();
-                statement.setQueryTimeout(30); // set timeout to 30 seconds
-                ResultSet result;
+                connection = openCookieStore(cookieStore);
+                PreparedStatement statement;
                 if (domainFilter == null || domainFilter.isEmpty()) {
-                    result = statement.executeQuery("select * from cookies");
+                    statement = connection.prepareStatement("select * from cookies");
                 } else {
-                    result = statement.executeQuery("select * from cookies where host_key like \"%" + domainFilter + "%\"");
+                    statement = connection.prepareStatement("select * from cookies where host_key like ? escape '\\'");
+                    statement.setString(1, containsPattern(domainFilter));
                 }
+                statement.setQueryTimeout(30); // set timeout to 30 seconds
+                ResultSet result = statement.executeQuery();
+                ArrayList<EncryptedCookie> encryptedCookies = new ArrayList<>();
                 while (result.next()) {
                     String name = result.getString("name");
-                    parseCookieFromResult(cookieStore, name, cookies, result);
+                    encryptedCookies.add(parseCookieFromResult(cookieStore, name, result));
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
-                // if the error message is "out of memory",
-                // it probably means no database file is found
+                cookies.addAll(decryptAll(encryptedCookies));
             } finally {
                 try {
                     if (connection != null) {
@@ -183,15 +172,15 @@ public class ChromeBrowser extends Browser {
         return cookies;
     }
 
-    private void parseCookieFromResult(File cookieStore, String name, HashSet<Cookie> cookies, ResultSet result) throws SQLException {
+    private EncryptedCookie parseCookieFromResult(File cookieStore, String name, ResultSet result) throws SQLException {
         byte[] encryptedBytes = result.getBytes("encrypted_value");
         String path = result.getString("path");
         String domain = result.getString("host_key");
         boolean secure = determineSecure(result);
         boolean httpOnly = determineHttpOnly(result);
-        Date expires = result.getDate("expires_utc");
+        Date expires = chromeTime(result.getLong("expires_utc"));
 
-        EncryptedCookie encryptedCookie = new EncryptedCookie(name,
+        return new EncryptedCookie(name,
                 encryptedBytes,
                 expires,
                 path,
@@ -199,11 +188,13 @@ public class ChromeBrowser extends Browser {
                 secure,
                 httpOnly,
                 cookieStore);
+    }
 
-        DecryptedCookie decryptedCookie = decrypt(encryptedCookie);
-
-        cookies.add(Objects.requireNonNullElse(decryptedCookie, encryptedCookie));
-        cookieStoreCopy.delete();
+    /**
+     * Chrome keeps times as microseconds since 1601, with 0 for a session cookie
+     */
+    private static Date chromeTime(long micros) {
+        return micros == 0 ? null : new Date(micros / 1000 - WINDOWS_EPOCH_OFFSET);
     }
 
     private boolean determineHttpOnly(ResultSet result) throws SQLException {
@@ -227,96 +218,21 @@ public class ChromeBrowser extends Browser {
     }
 
     /**
-     * Decrypts an encrypted cookie
+     * Decrypts every cookie of a result set with the same derived key, falling back to the encrypted
+     * cookie for any value that cannot be decrypted
      */
-    private DecryptedCookie decrypt(EncryptedCookie encryptedCookie) {
-        byte[] decryptedBytes = null;
-
-        if (OS.isWindows()) {
-            try {
-                // Separate prefix (v10), nonce and ciphertext/tag
-                byte[] nonce = Arrays.copyOfRange(encryptedCookie.getEncryptedValue(), 3, 3 + 12);
-                byte[] ciphertextTag = Arrays.copyOfRange(encryptedCookie.getEncryptedValue(), 3 + 12,
-                        encryptedCookie.getEncryptedValue().length);
-
-                // Decrypt
-                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-
-                GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(128, nonce);
-                SecretKeySpec keySpec = new SecretKeySpec(windowsMasterKey, "AES");
-
-                cipher.init(Cipher.DECRYPT_MODE, keySpec, gcmParameterSpec);
-                decryptedBytes = cipher.doFinal(ciphertextTag);
-            } catch (Exception ignored) {
-            }
-
-        } else if (OS.isLinux()) {
-            try {
-                byte[] salt = "saltysalt".getBytes();
-                char[] password = "peanuts".toCharArray();
-                char[] iv = new char[16];
-                Arrays.fill(iv, ' ');
-                int keyLength = 16;
-
-                int iterations = 1;
-
-                PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength * 8);
-                SecretKeyFactory pbkdf2 = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-
-                byte[] aesKey = pbkdf2.generateSecret(spec).getEncoded();
-
-                SecretKeySpec keySpec = new SecretKeySpec(aesKey, "AES");
-
-                Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-                cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(new String(iv).getBytes()));
-
-                // if cookies are encrypted "v10" is a the prefix (has to be removed before decryption)
-                byte[] encryptedBytes = encryptedCookie.getEncryptedValue();
-                if (new String(encryptedCookie.getEncryptedValue()).startsWith("v10")) {
-                    encryptedBytes = Arrays.copyOfRange(encryptedBytes, 3, encryptedBytes.length);
-                }
-                decryptedBytes = cipher.doFinal(encryptedBytes);
-            } catch (Exception ignored) {
-            }
-        } else if (OS.isMac()) {
-            // access the decryption password from the keyring manager
-            if (chromeKeyringPassword == null) try {
-                chromeKeyringPassword = getMacKeyringPassword();
-            } catch (IOException ignored) {
-            }
-            try {
-                byte[] salt = "saltysalt".getBytes();
-                char[] password = chromeKeyringPassword.toCharArray();
-                byte[] iv = new byte[16];
-                Arrays.fill(iv, (byte) ' ');
-                int keyLength = 16;
-
-                int iterations = 1003;
-
-                PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength * 8);
-                SecretKeyFactory pbkdf2 = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-
-                byte[] aesKey = pbkdf2.generateSecret(spec).getEncoded();
-
-                SecretKeySpec keySpec = new SecretKeySpec(aesKey, "AES");
-
-                Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-                cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(iv));
-
-                // if cookies are encrypted "v10" is a the prefix (has to be removed before decryption)
-                byte[] encryptedBytes = encryptedCookie.getEncryptedValue();
-                if (new String(encryptedCookie.getEncryptedValue()).startsWith("v10")) {
-                    encryptedBytes = Arrays.copyOfRange(encryptedBytes, 3, encryptedBytes.length);
-                }
-                decryptedBytes = cipher.doFinal(encryptedBytes);
-            } catch (Exception ignored) {
-            }
+    public List<Cookie> decryptAll(List<EncryptedCookie> encryptedCookies) {
+        ArrayList<byte[]> values = new ArrayList<>(encryptedCookies.size());
+        for (EncryptedCookie encryptedCookie : encryptedCookies) {
+            values.add(encryptedCookie.getEncryptedValue());
         }
 
-        if (decryptedBytes == null) {
-            return null;
-        } else {
-            return new DecryptedCookie(encryptedCookie.getName(),
+        List<byte[]> decrypted = getCookieCipher().decryptAll(values);
+        ArrayList<Cookie> cookies = new ArrayList<>(encryptedCookies.size());
+        for (int i = 0; i < encryptedCookies.size(); i++) {
+            EncryptedCookie encryptedCookie = encryptedCookies.get(i);
+            byte[] decryptedBytes = decrypted.get(i);
+            cookies.add(decryptedBytes == null ? encryptedCookie : new DecryptedCookie(encryptedCookie.getName(),
                     encryptedCookie.getEncryptedValue(),
                     new String(decryptedBytes),
                     encryptedCookie.getExpires(),
@@ -324,7 +240,30 @@ public class ChromeBrowser extends Browser {
                     encryptedCookie.getDomain(),
                     encryptedCookie.isSecure(),
                     encryptedCookie.isHttpOnly(),
-                    encryptedCookie.getCookieStore());
+                    encryptedCookie.getCookieStore()));
+        }
+        return cookies;
+    }
+
+    /**
+     * The key is derived on first use and kept for the life of this browser, so the Mac keychain
+     * is asked once and PBKDF2 runs once
+     */
+    private synchronized ChromeCookieCipher getCookieCipher() {
+        if (cookieCipher == null) {
+            if (OS.isWindows()) {
+                cookieCipher = ChromeCookieCipher.forWindows(windowsMasterKey);
+            } else if (OS.isMac()) {
+                String keyringPassword = null;
+                try {
+                    keyringPassword = getMacKeyringPassword();
+                } catch (IOException ignored) {
+                }
+                cookieCipher = ChromeCookieCipher.forMac(keyringPassword);
+            } else {
+                cookieCipher = ChromeCookieCipher.forLinux();
+            }
         }
+        return cookieCipher;
     }
 }
@@ -0,0 +1,119 @@
+package cmonster.browsers;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decrypts Chrome cookie values with a key that is derived once, when the context is made.
+ * <p>
+ * Windows keys are AES-GCM with a nonce per cookie, so the cipher is initialized per value. Mac and Linux
+ * keys are AES-CBC with a fixed IV, so each thread keeps one initialized cipher and reuses it, as doFinal
+ * leaves a cipher ready for the next value.
+ */
+class ChromeCookieCipher {
+    private static final byte[] PREFIX = {'v', '1', '0'};
+    private static final int NONCE_LENGTH = 12;
+    private static final int KEY_LENGTH = 16;
+    private static final byte[] SALT = "saltysalt".getBytes();
+
+    private final SecretKeySpec key;
+    private final boolean gcm;
+    private final byte[] iv;
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
+    private ChromeCookieCipher(SecretKeySpec key, boolean gcm) {
+        this.key = key;
+        this.gcm = gcm;
+        this.iv = new byte[16];
+        Arrays.fill(iv, (byte) ' ');
+    }
+
+    /**
+     * @param masterKey The master key from Local State, already unprotected with DPAPI
+     */
+    static ChromeCookieCipher forWindows(byte[] masterKey) {
+        return new ChromeCookieCipher(masterKey == null ? null : new SecretKeySpec(masterKey, "AES"), true);
+    }
+
+    static ChromeCookieCipher forLinux() {
+        return new ChromeCookieCipher(derive("peanuts", 1), false);
+    }
+
+    /**
+     * @param keyringPassword The Chrome Safe Storage password from the keychain, or null if it could not be read
+     */
+    static ChromeCookieCipher forMac(String keyringPassword) {
+        return new ChromeCookieCipher(keyringPassword == null ? null : derive(keyringPassword, 1003), false);
+    }
+
+    private static SecretKeySpec derive(String password, int iterations) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), SALT, iterations, KEY_LENGTH * 8);
+            SecretKeyFactory pbkdf2 = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+            return new SecretKeySpec(pbkdf2.generateSecret(spec).getEncoded(), "AES");
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The plaintext, or null if the value could not be decrypted
+     */
+    byte[] decrypt(byte[] encrypted) {
+        if (key == null || encrypted == null) return null;
+
+        try {
+            Cipher cipher = ciphers.get();
+            if (cipher == null) {
+                cipher = Cipher.getInstance(gcm ? "AES/GCM/NoPadding" : "AES/CBC/PKCS5Padding");
+                if (!gcm) cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+                ciphers.set(cipher);
+            }
+
+            if (gcm) {
+                // Prefix (v10), then the nonce, then ciphertext and tag
+                int offset = PREFIX.length + NONCE_LENGTH;
+                if (encrypted.length < offset) return null;
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, encrypted, PREFIX.length, NONCE_LENGTH));
+                return cipher.doFinal(encrypted, offset, encrypted.length - offset);
+            }
+
+            // Encrypted values carry a "v10" prefix that is not part of the ciphertext
+            int offset = hasPrefix(encrypted) ? PREFIX.length : 0;
+            return cipher.doFinal(encrypted, offset, encrypted.length - offset);
+        } catch (GeneralSecurityException | IllegalArgumentException | IllegalStateException e) {
+            // A failed doFinal can leave the cipher mid-operation, so this thread starts over with a new one
+            ciphers.remove();
+            return null;
+        }
+    }
+
+    /**
+     * Decrypts a whole result set's values with one key and, per thread, one cipher
+     *
+     * @return The plaintexts in the same order, with null wherever a value could not be decrypted
+     */
+    List<byte[]> decryptAll(List<byte[]> encrypted) {
+        List<byte[]> decrypted = new ArrayList<>(encrypted.size());
+        for (byte[] value : encrypted) {
+            decrypted.add(decrypt(value));
+        }
+        return decrypted;
+    }
+
+    private static boolean hasPrefix(byte[] value) {
+        if (value.length < PREFIX.length) return false;
+        for (int i = 0; i < PREFIX.length; i++) {
+            if (value[i] != PREFIX[i]) return false;
+        }
+        return true;
+    }
+}
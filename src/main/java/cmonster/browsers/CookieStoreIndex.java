@@ -0,0 +1,157 @@
+package cmonster.browsers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers, across runs, where cookie stores were found and which stores held nothing for a domain.
+ * <p>
+ * A profile tree is only walked again once its top directory's mtime changes, which is what happens when
+ * a profile is added or removed, or when the stores it listed turn up nothing (see {@link #forgetDiscoveries()}).
+ * A store that had no cookies for a domain is skipped until it or its write-ahead log is written again.
+ * Only paths, mtimes and counts are kept here, never cookie values.
+ */
+class CookieStoreIndex {
+	private static final File FILE = new File(".torch-cookie-stores");
+	private static final String DISCOVERY = "D";
+	private static final String SCAN = "S";
+
+	private final File file;
+	private final Map<String, Discovery> discoveries = new ConcurrentHashMap<>();
+	private final Map<String, Scan> scans = new ConcurrentHashMap<>();
+	private volatile boolean reused = false;
+
+	CookieStoreIndex() {
+		this(FILE);
+	}
+
+	CookieStoreIndex(File file) {
+		this.file = file;
+		load();
+	}
+
+	/**
+	 * @param walk Finds the stores under the directory the slow way
+	 * @return The stores under the directory, from the index while the directory is unchanged
+	 */
+	List<File> discover(File directory, Supplier<List<File>> walk) {
+		if (!directory.isDirectory()) return List.of();
+
+		long modified = directory.lastModified();
+		Discovery known = discoveries.get(directory.getPath());
+		if (known != null && known.modified == modified && known.stores.stream().allMatch(File::isFile)) {
+			reused = true;
+			return known.stores;
+		}
+
+		List<File> stores = walk.get();
+		discoveries.put(directory.getPath(), new Discovery(modified, stores));
+		return stores;
+	}
+
+	/**
+	 * Drops every remembered walk, so the next discovery walks again
+	 *
+	 * @return Whether any stores were handed out from the index rather than a walk, so walking again could find more
+	 */
+	boolean forgetDiscoveries() {
+		boolean wasReused = reused;
+		reused = false;
+		discoveries.clear();
+		return wasReused;
+	}
+
+	/**
+	 * Whether the store held no cookies for the domain when last read, and has not been written since
+	 */
+	boolean isKnownEmpty(File store, String domain) {
+		if (domain == null || domain.isEmpty()) return false;
+		Scan known = scans.get(key(store, domain));
+		return known != null && known.count == 0 && known.modified == lastWritten(store);
+	}
+
+	/**
+	 * When the store was last written. Browsers write new cookies to the write-ahead log first,
+	 * and only later into the store itself, so the log counts too.
+	 */
+	static long lastWritten(File store) {
+		return Math.max(store.lastModified(), new File(store.getPath() + "-wal").lastModified());
+	}
+
+	void record(File store, String domain, long modified, int count) {
+		if (domain == null || domain.isEmpty()) return;
+		scans.put(key(store, domain), new Scan(modified, count));
+	}
+
+	/**
+	 * Writes the index, replacing the old one only once the new one is complete
+	 */
+	void save() {
+		File temporary = new File(file.getPath() + ".tmp");
+		try (Writer writer = new FileWriter(temporary, UTF_8)) {
+			for (Map.Entry<String, Discovery> entry : discoveries.entrySet()) {
+				StringBuilder line = new StringBuilder(DISCOVERY).append('\t').append(entry.getKey())
+						.append('\t').append(entry.getValue().modified);
+				for (File store : entry.getValue().stores) line.append('\t').append(store.getPath());
+				writer.write(line.append('\n').toString());
+			}
+			for (Map.Entry<String, Scan> entry : scans.entrySet()) {
+				writer.write(SCAN + "\t" + entry.getKey() + "\t" + entry.getValue().modified + "\t" + entry.getValue().count + "\n");
+			}
+		} catch (IOException e) {
+			// the index only saves time, so a run that cannot write it just walks again next time
+			temporary.delete();
+			return;
+		}
+
+		try {
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			temporary.delete();
+		}
+	}
+
+	private void load() {
+		if (!file.isFile()) return;
+		try (BufferedReader reader = new BufferedReader(new FileReader(file, UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if (fields[0].equals(DISCOVERY) && fields.length >= 3) {
+					List<File> stores = new ArrayList<>();
+					for (int i = 3; i < fields.length; i++) stores.add(new File(fields[i]));
+					discoveries.put(fields[1], new Discovery(Long.parseLong(fields[2]), stores));
+				} else if (fields[0].equals(SCAN) && fields.length == 5) {
+					scans.put(fields[1] + "\t" + fields[2], new Scan(Long.parseLong(fields[3]), Integer.parseInt(fields[4])));
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			// a damaged index is as good as none
+			discoveries.clear();
+			scans.clear();
+		}
+	}
+
+	private static String key(File store, String domain) {
+		return store.getPath() + "\t" + domain;
+	}
+
+	private record Discovery(long modified, List<File> stores) {
+	}
+
+	private record Scan(long modified, int count) {
+	}
+}
@@ -3,7 +3,6 @@ package cmonster.browsers;
 import cmonster.cookies.Cookie;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.sql.*;
 import java.util.Date;
 import java.util.HashSet;
@@ -12,6 +11,8 @@ import java.util.Set;
 import java.util.regex.Matcher;
 
 public class FirefoxBrowser extends Browser {
+	// An expiry above this is already in milliseconds, as seconds would put it past the year 5000
+	private static final long MILLISECOND_EXPIRY = 100_000_000_000L;
 
 	@Override
 	public String getName() {
@@ -47,34 +48,25 @@ public class FirefoxBrowser extends Browser {
 		return cookieStores;
 	}
 
-	@SuppressWarnings({"ResultOfMethodCallIgnored", "CallToPrintStackTrace"})
 	@Override
-	protected Set<Cookie> processCookies(File cookieStore, String domainFilter) {
+	protected Set<Cookie> processCookies(File cookieStore, String domainFilter) throws SQLException {
 		HashSet<Cookie> cookies = new HashSet<>();
 		if (cookieStore.exists()) {
 			Connection connection = null;
 			try {
-				cookieStoreCopy.delete();
-				Files.copy(cookieStore.toPath(), cookieStoreCopy.toPath());
-				// load the sqlite-JDBC driver using the current class loader
-				Class.forName("org.sqlite.JDBC");
-				// create a database connection
-				connection = DriverManager.getConnection("jdbc:sqlite:" + cookieStoreCopy.getAbsolutePath());
-				Statement statement = connection.createStatement();
-				statement.setQueryTimeout(30); // set timeout to 30 seconds
-				ResultSet result;
+				connection = openCookieStore(cookieStore);
+				PreparedStatement statement;
 				if (domainFilter == null || domainFilter.isEmpty()) {
-					result = statement.executeQuery("select * from moz_cookies");
+					statement = connection.prepareStatement("select * from moz_cookies");
 				} else {
-					result = statement.executeQuery("select * from moz_cookies where host like \"%" + domainFilter + "%\"");
+					statement = connection.prepareStatement("select * from moz_cookies where host like ? escape '\\'");
+					statement.setString(1, containsPattern(domainFilter));
 				}
+				statement.setQueryTimeout(30); // set timeout to 30 seconds
+				ResultSet result = statement.executeQuery();
 				while (result.next()) {
 					parseCookieFromResult(cookieStore, cookies, result);
 				}
-			} catch (Exception e) {
-				e.printStackTrace();
-				// if the error message is "out of memory",
-				// it probably means no database file is found
 			} finally {
 				try {
 					if (connection != null) {
@@ -95,7 +87,9 @@ public class FirefoxBrowser extends Browser {
 		String domain = result.getString("host");
 		boolean secure = result.getBoolean("isSecure");
 		boolean httpOnly = result.getBoolean("isHttpOnly");
-		Date expires = result.getDate("expiry");
+		long expiry = result.getLong("expiry");
+		// Newer profiles write milliseconds here, older ones seconds
+		Date expires = expiry == 0 ? null : new Date(expiry > MILLISECOND_EXPIRY ? expiry : expiry * 1000);
 		cookies.add(new Cookie(name, value, expires, path, domain, secure, httpOnly, cookieStore));
 	}
 
@@ -1,159 +1,157 @@
 package memory;
 
-import memory.managers.CookieManager;
-import memory.managers.Manager;
+import memory.stores.Store;
 import memory.types.Cookie;
+import memory.types.Mark;
 import memory.types.Staff;
 import memory.types.Story;
-import org.jdom2.Document;
-import org.jdom2.Element;
 import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-import utilities.Logger;
-import utilities.SectionName;
+import utilities.Metrics;
+import utilities.Phase;
 
-import javax.xml.XMLConstants;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 public class DocumentManager {
-    private final String filePath = "memory.torch";
-    private final File file = new File(filePath);
-    private final CookieManager cookieManager = new CookieManager();
-    private final Manager<Staff> staffManager = new Manager<>(ListType.STAFF_LIST.type());
-    private final Manager<Story> storyManager = new Manager<>(ListType.STORY_LIST.type());
-    private final XMLOutputter outputter = new XMLOutputter();
-    private Element root;
-    private Document memoryDocument;
+    private final Lists lists = new Lists();
+    private final Store store;
 
     public DocumentManager() throws IOException, JDOMException {
-        outputter.setFormat(Format.getPrettyFormat());
-
-        create();
+        this(StoreFormat.JOURNAL);
     }
 
-    public void create() throws IOException, JDOMException {
-        Element storyList;
-        Element staffList;
-        Element cookieList;
-        if (file.createNewFile()) {
-            Logger.log(SectionName.MEMORY, "Local memory file not found");
-
-            memoryDocument = new Document();
-
-            root = new Element("memory");
-            memoryDocument.setRootElement(root);
-
-            cookieList = cookieManager.getElement();
-            staffList = staffManager.getElement();
-            storyList = storyManager.getElement();
-
-            memoryDocument.getRootElement().addContent(cookieList);
-            memoryDocument.getRootElement().addContent(staffList);
-            memoryDocument.getRootElement().addContent(storyList);
-
-            save();
-        } else {
-            Logger.log(SectionName.MEMORY, "Local memory file found");
-
-            SAXBuilder sax = new SAXBuilder();
-            sax.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-            sax.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-
-            memoryDocument = sax.build(file);
+    public DocumentManager(StoreFormat format) throws IOException, JDOMException {
+        this(format, null);
+    }
 
-            root = memoryDocument.getRootElement();
+    public DocumentManager(StoreFormat format, File directory) throws IOException, JDOMException {
+        this.store = format.open(directory);
 
-            cookieList = root.getChild(ListType.COOKIE_LIST.type());
-            for (Element cookie : cookieList.getChildren("cookie")) {
-                cookieManager.add(new Cookie(cookie));
-            }
+        create();
+    }
 
-            storyList = root.getChild(ListType.STORY_LIST.type());
-            for (Element story : storyList.getChildren("story")) {
-                storyManager.add(new Story(story));
-            }
+    public void create() throws IOException, JDOMException {
+        long start = Metrics.start();
+        lists.clear();
+        store.load(lists);
+        Metrics.record(Phase.LOAD, start);
+    }
 
-            staffList = root.getChild(ListType.STAFF_LIST.type());
-            for (Element staff : staffList.getChildren("staff")) {
-                staffManager.add(new Staff(staff));
-            }
+    public void close() throws IOException {
+        long start = Metrics.start();
+        store.close(lists);
+        Metrics.record(Phase.PERSIST, start);
+    }
 
-            save();
-        }
+    private void persist(ListType changed) throws IOException {
+        long start = Metrics.start();
+        store.save(lists, changed);
+        Metrics.record(Phase.PERSIST, start);
     }
 
-    private void save() throws IOException {
-        FileWriter fileWriter = new FileWriter(file);
-        outputter.output(memoryDocument, fileWriter);
-        fileWriter.close();
+    private void persistReplaced(ListType changed) throws IOException {
+        long start = Metrics.start();
+        store.replace(lists, changed);
+        Metrics.record(Phase.PERSIST, start);
     }
 
     // Cookie Block
     public void addCookie(Cookie cookie) {
-        cookieManager.add(cookie);
+        lists.getCookieManager().add(cookie);
+    }
+
+    public ArrayList<Cookie> getCookies() {
+        return lists.getCookieManager().getElements();
     }
 
     public String getCookieList() {
-        return cookieManager.getCookie();
+        return lists.getCookieManager().getCookie();
     }
 
     public void clearCookies() throws IOException {
-        cookieManager.clearElements();
-        save();
+        lists.getCookieManager().clearElements();
+        persist(ListType.COOKIE_LIST);
     }
 
     public void saveCookies() throws IOException {
-        root.removeChild(ListType.COOKIE_LIST.type());
-        root.addContent(cookieManager.getElement());
-        save();
+        persist(ListType.COOKIE_LIST);
     }
 
     // Staff Block
     public void addStaffList(ArrayList<Staff> staffList) {
         for (Staff staff : staffList) {
-            staffManager.add(staff);
+            lists.getStaffManager().add(staff);
         }
     }
 
     public ArrayList<Staff> getStaffList() {
-        return staffManager.getElements();
+        return lists.getStaffManager().getElements();
     }
 
     public void clearStaff() throws IOException {
-        staffManager.clearElements();
-        save();
+        lists.getStaffManager().clearElements();
+        persist(ListType.STAFF_LIST);
     }
 
     public void saveStaff() throws IOException {
-        root.removeChild(ListType.STAFF_LIST.type());
-        root.addContent(staffManager.getElement());
-        save();
+        persist(ListType.STAFF_LIST);
     }
 
     // Story Block
     public void addStoryList(ArrayList<Story> storyList) {
         for (Story story : storyList) {
-            storyManager.add(story);
+            lists.getStoryManager().add(story);
         }
     }
 
     public ArrayList<Story> getStoriesList() {
-        return storyManager.getElements();
+        return lists.getStoryManager().getElements();
+    }
+
+    public ArrayList<Story> getStories(int staffID, int month, int year) throws IOException {
+        return store.findStories(lists, staffID, month, year);
     }
 
     public void clearStories() throws IOException {
-        storyManager.clearElements();
-        save();
+        lists.getStoryManager().clearElements();
+        persist(ListType.STORY_LIST);
     }
 
     public void saveStories() throws IOException {
-        root.removeChild(ListType.STORY_LIST.type());
-        root.addContent(storyManager.getElement());
-        save();
+        persist(ListType.STORY_LIST);
+    }
+
+    /**
+     * Swaps in a refreshed story list and the marks taken from it. The stories are written in one go, never
+     * cleared on their own, and the old marks are dropped first: a crash part way leaves stories without marks,
+     * which only costs the next run a full refresh, rather than old marks over missing stories.
+     */
+    public void replaceStories(ArrayList<Story> storyList, ArrayList<Mark> markList) throws IOException {
+        lists.getMarkManager().clearElements();
+        persistReplaced(ListType.MARK_LIST);
+
+        lists.getStoryManager().clearElements();
+        addStoryList(storyList);
+        persistReplaced(ListType.STORY_LIST);
+
+        addMarkList(markList);
+        persist(ListType.MARK_LIST);
+    }
+
+    // Mark Block
+    public void addMarkList(ArrayList<Mark> markList) {
+        for (Mark mark : markList) {
+            lists.getMarkManager().add(mark);
+        }
+    }
+
+    public HashMap<Integer, Mark> getMarks() {
+        HashMap<Integer, Mark> marks = new HashMap<>();
+        for (Mark mark : lists.getMarkManager().getElements()) {
+            marks.put(mark.getId(), mark);
+        }
+        return marks;
     }
 }
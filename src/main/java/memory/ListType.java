@@ -3,7 +3,8 @@ package memory;
 public enum ListType {
     COOKIE_LIST("CookieList"),
     STAFF_LIST("StaffList"),
-    STORY_LIST("StoryList");
+    STORY_LIST("StoryList"),
+    MARK_LIST("MarkList");
 
     private final String type;
 
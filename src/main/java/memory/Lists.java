@@ -0,0 +1,49 @@
+package memory;
+
+import memory.managers.CookieManager;
+import memory.managers.Manager;
+import memory.types.Data;
+import memory.types.Mark;
+import memory.types.Staff;
+import memory.types.Story;
+
+/**
+ * Every list kept in memory, handed to a Store to be filled or written out
+ */
+public class Lists {
+    private final CookieManager cookieManager = new CookieManager();
+    private final Manager<Staff> staffManager = new Manager<>(ListType.STAFF_LIST.type());
+    private final Manager<Story> storyManager = new Manager<>(ListType.STORY_LIST.type());
+    private final Manager<Mark> markManager = new Manager<>(ListType.MARK_LIST.type());
+
+    public CookieManager getCookieManager() {
+        return cookieManager;
+    }
+
+    public Manager<Staff> getStaffManager() {
+        return staffManager;
+    }
+
+    public Manager<Story> getStoryManager() {
+        return storyManager;
+    }
+
+    public Manager<Mark> getMarkManager() {
+        return markManager;
+    }
+
+    public Manager<? extends Data> get(ListType type) {
+        return switch (type) {
+            case COOKIE_LIST -> cookieManager;
+            case STAFF_LIST -> staffManager;
+            case STORY_LIST -> storyManager;
+            case MARK_LIST -> markManager;
+        };
+    }
+
+    public void clear() {
+        for (ListType type : ListType.values()) {
+            get(type).clearElements();
+        }
+    }
+}
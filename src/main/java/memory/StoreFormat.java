@@ -0,0 +1,42 @@
+package memory;
+
+import memory.stores.BinaryStore;
+import memory.stores.JournalStore;
+import memory.stores.SqliteStore;
+import memory.stores.Store;
+import memory.stores.XmlStore;
+
+import java.io.File;
+
+public enum StoreFormat {
+    XML("memory.torch"),
+    BINARY("memory.torch.bin"),
+    JOURNAL("memory.torch.log"),
+    SQLITE("memory.torch.db");
+
+    private final String filePath;
+
+    StoreFormat(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String filePath() {
+        return this.filePath;
+    }
+
+    public Store open() {
+        return open(null);
+    }
+
+    /**
+     * @param directory Where the memory files live, or null for the working directory
+     */
+    public Store open(File directory) {
+        return switch (this) {
+            case XML -> new XmlStore(new File(directory, XML.filePath));
+            case BINARY -> new BinaryStore(new File(directory, BINARY.filePath), (XmlStore) XML.open(directory));
+            case JOURNAL -> new JournalStore(new File(directory, JOURNAL.filePath), (BinaryStore) BINARY.open(directory));
+            case SQLITE -> new SqliteStore(new File(directory, SQLITE.filePath), JOURNAL.open(directory));
+        };
+    }
+}
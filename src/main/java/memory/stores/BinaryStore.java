@@ -0,0 +1,126 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.types.Data;
+import org.jdom2.JDOMException;
+import utilities.Logger;
+import utilities.SectionName;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps memory as a compact binary snapshot instead of pretty-printed XML.
+ * <p>
+ * The file starts with a magic number, a format version and a generation, followed by each list as a record
+ * count and its records. Strings are length-prefixed modified UTF-8. A snapshot is written to a
+ * temporary file and moved into place, so a crash mid-save leaves the previous snapshot intact.
+ */
+public class BinaryStore implements Store {
+    private static final int MAGIC = 0x54524348; // "TRCH"
+    private static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final XmlStore legacy;
+    private long generation = 0;
+
+    /**
+     * @param file   The snapshot file
+     * @param legacy The XML store to migrate from when no snapshot exists yet
+     */
+    public BinaryStore(File file, XmlStore legacy) {
+        this.file = file;
+        this.legacy = legacy;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.isFile() || (legacy != null && legacy.exists());
+    }
+
+    @Override
+    public void load(Lists lists) throws IOException, JDOMException {
+        if (file.isFile()) {
+            Logger.log(SectionName.MEMORY, "Local memory file found");
+            read(lists);
+        } else if (legacy != null && legacy.exists()) {
+            Logger.log(SectionName.MEMORY, "Migrating " + legacy.getFile().getName() + " to " + file.getName());
+            legacy.load(lists);
+            write(lists);
+        } else {
+            Logger.log(SectionName.MEMORY, "Local memory file not found");
+            write(lists);
+        }
+    }
+
+    @Override
+    public void save(Lists lists, ListType changed) throws IOException {
+        write(lists);
+    }
+
+    private void read(Lists lists) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file.getName() + " is not a memory snapshot");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file.getName() + " has unsupported format version " + version);
+            }
+            // Version 1 snapshots predate the journal and carry no generation
+            generation = version >= 2 ? in.readLong() : 0;
+            // Version 3 snapshots hold format 2 records
+            int format = version >= 3 ? Records.FORMAT : 1;
+
+            for (ListType type : ListType.values()) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Records.read(in, type, lists, format);
+                }
+            }
+        }
+    }
+
+    /**
+     * The generation counts compactions, so a journal can tell whether it was written on top of this snapshot
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    void write(Lists lists) throws IOException {
+        write(lists, generation);
+    }
+
+    void write(Lists lists, long generation) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temporary);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+
+            for (ListType type : ListType.values()) {
+                out.writeInt(lists.get(type).getElements().size());
+                for (Data data : lists.get(type).getElements()) {
+                    Records.write(out, type, data);
+                }
+            }
+
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.generation = generation;
+    }
+}
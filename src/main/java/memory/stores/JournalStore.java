@@ -0,0 +1,232 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.managers.Manager;
+import memory.types.Data;
+import org.jdom2.JDOMException;
+import utilities.Logger;
+import utilities.SectionName;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Appends each change to a journal instead of rewriting all of memory, and folds the
+ * journal back into a binary snapshot once it grows large or the program closes.
+ * <p>
+ * The journal opens with the generation of the snapshot it applies to. Each entry after that
+ * is its length, a CRC32 of its contents, the list it changes, whether the list was cleared
+ * first, and the entries appended to it. Each save is one entry and one fsync. Entries cut
+ * short by a crash fail their length or checksum on load and are dropped.
+ */
+public class JournalStore implements Store {
+    private static final long COMPACT_BYTES = 4L * 1024 * 1024;
+    private static final int LEGACY_MAGIC = 0x5452434A; // "TRCJ", format 1 records
+    private static final int MAGIC = 0x5452434B; // "TRCK", format 2 records
+    private static final int FILE_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final File file;
+    private final BinaryStore snapshot;
+    private final int[] journaled = new int[ListType.values().length];
+    private FileChannel channel;
+    private int format = Records.FORMAT;
+
+    /**
+     * @param file     The journal file
+     * @param snapshot The snapshot the journal is replayed onto and compacted into
+     */
+    public JournalStore(File file, BinaryStore snapshot) {
+        this.file = file;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public boolean exists() {
+        return snapshot.exists();
+    }
+
+    @Override
+    public void load(Lists lists) throws IOException, JDOMException {
+        if (channel != null) channel.close();
+
+        snapshot.load(lists);
+        long valid = replay(lists);
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (valid == 0) {
+            // Missing, unreadable, or left over from before the last compaction
+            reset(snapshot.getGeneration());
+            valid = FILE_HEADER_SIZE;
+        } else if (channel.size() > valid) {
+            Logger.log(SectionName.MEMORY, "Discarding " + (channel.size() - valid) + " bytes of incomplete journal");
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+
+        for (ListType type : ListType.values()) {
+            journaled[type.ordinal()] = lists.get(type).getElements().size();
+        }
+
+        if (format < Records.FORMAT) {
+            // Nothing may be appended in the new format after old entries, so fold them into the snapshot first
+            Logger.log(SectionName.MEMORY, "Upgrading " + file.getName());
+            if (valid > FILE_HEADER_SIZE) {
+                compact(lists);
+            } else {
+                reset(snapshot.getGeneration());
+            }
+            format = Records.FORMAT;
+        } else if (valid > COMPACT_BYTES) {
+            compact(lists);
+        }
+    }
+
+    @Override
+    public void save(Lists lists, ListType changed) throws IOException {
+        append(lists, changed, false);
+    }
+
+    @Override
+    public void replace(Lists lists, ListType changed) throws IOException {
+        append(lists, changed, true);
+    }
+
+    /**
+     * @param replace Whether the entry clears the list before adding it back whole
+     */
+    private void append(Lists lists, ListType changed, boolean replace) throws IOException {
+        Manager<? extends Data> manager = lists.get(changed);
+        int size = manager.getElements().size();
+        int from = journaled[changed.ordinal()];
+
+        // A shorter list than we journaled means it was cleared since
+        boolean cleared = replace || size < from;
+        if (cleared) from = 0;
+        if (!cleared && from == size) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(changed.ordinal());
+        out.writeBoolean(cleared);
+        out.writeInt(size - from);
+        for (int i = from; i < size; i++) {
+            Records.write(out, changed, manager.getElements().get(i));
+        }
+        out.flush();
+
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        entry.putInt(body.length);
+        entry.putInt((int) crc.getValue());
+        entry.put(body);
+        entry.flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        channel.force(false);
+
+        journaled[changed.ordinal()] = size;
+
+        if (channel.size() > COMPACT_BYTES) compact(lists);
+    }
+
+    @Override
+    public void close(Lists lists) throws IOException {
+        if (channel == null) return;
+        compact(lists);
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Writes a snapshot of the next generation, then starts an empty journal for it. A crash
+     * between the two leaves a journal of the old generation, which the next load ignores.
+     */
+    private void compact(Lists lists) throws IOException {
+        if (channel.size() <= FILE_HEADER_SIZE) return;
+        long generation = snapshot.getGeneration() + 1;
+        snapshot.write(lists, generation);
+        reset(generation);
+    }
+
+    private void reset(long generation) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putLong(generation);
+        header.flip();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Applies every intact journal entry to the lists
+     *
+     * @return The length of the intact prefix of the journal, or 0 if it does not belong to the snapshot
+     */
+    private long replay(Lists lists) throws IOException {
+        if (!file.isFile() || file.length() < FILE_HEADER_SIZE) return 0;
+
+        long valid;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC && magic != LEGACY_MAGIC) return 0;
+            if (in.readLong() != snapshot.getGeneration()) return 0;
+            format = magic == MAGIC ? Records.FORMAT : 1;
+            valid = FILE_HEADER_SIZE;
+
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > file.length()) break;
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) break;
+
+                apply(lists, body);
+                valid += HEADER_SIZE + length;
+            }
+        }
+        return valid;
+    }
+
+    private void apply(Lists lists, byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        ListType type = ListType.values()[in.readUnsignedByte()];
+        if (in.readBoolean()) lists.get(type).clearElements();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Records.read(in, type, lists, format);
+        }
+    }
+}
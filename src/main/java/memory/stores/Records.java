@@ -0,0 +1,90 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.types.Cookie;
+import memory.types.Data;
+import memory.types.Date;
+import memory.types.Mark;
+import memory.types.Name;
+import memory.types.Staff;
+import memory.types.Story;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The binary encoding of a single list entry, shared by the snapshot and the journal
+ */
+class Records {
+    // Format 2 added each cookie's expiry
+    static final int FORMAT = 2;
+
+    static void write(DataOutputStream out, ListType type, Data data) throws IOException {
+        switch (type) {
+            case COOKIE_LIST -> {
+                Cookie cookie = (Cookie) data;
+                out.writeUTF(cookie.getKey());
+                out.writeUTF(cookie.getValue());
+                out.writeLong(cookie.getExpires());
+            }
+            case STAFF_LIST -> {
+                Staff staff = (Staff) data;
+                out.writeInt(staff.getId());
+                out.writeUTF(staff.getName().getFirst());
+                out.writeUTF(staff.getName().getLast());
+            }
+            case STORY_LIST -> {
+                Story story = (Story) data;
+                out.writeInt(story.getId());
+                out.writeUTF(story.getTitle());
+                writeDate(out, story.getDate());
+            }
+            case MARK_LIST -> {
+                Mark mark = (Mark) data;
+                out.writeInt(mark.getId());
+                out.writeUTF(mark.getTitle());
+                writeDate(out, mark.getDate());
+            }
+        }
+    }
+
+    /**
+     * @param format The format the record was written in
+     */
+    static void read(DataInputStream in, ListType type, Lists lists, int format) throws IOException {
+        switch (type) {
+            case COOKIE_LIST -> {
+                String key = in.readUTF();
+                String value = in.readUTF();
+                lists.getCookieManager().add(new Cookie(key, value, format >= 2 ? in.readLong() : 0));
+            }
+            case STAFF_LIST -> {
+                int id = in.readInt();
+                lists.getStaffManager().add(new Staff(id, new Name(in.readUTF(), in.readUTF())));
+            }
+            case STORY_LIST -> {
+                int id = in.readInt();
+                String title = in.readUTF();
+                lists.getStoryManager().add(new Story(id, title, readDate(in)));
+            }
+            case MARK_LIST -> {
+                int id = in.readInt();
+                String title = in.readUTF();
+                lists.getMarkManager().add(new Mark(id, title, readDate(in)));
+            }
+        }
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        int month = in.readInt();
+        int year = in.readInt();
+        return new Date(month, year);
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeInt(date.getMonth());
+        out.writeInt(date.getYear());
+    }
+}
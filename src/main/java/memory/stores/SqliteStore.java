@@ -0,0 +1,305 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.managers.Manager;
+import memory.types.Cookie;
+import memory.types.Data;
+import memory.types.Date;
+import memory.types.Mark;
+import memory.types.Name;
+import memory.types.Staff;
+import memory.types.Story;
+import org.jdom2.JDOMException;
+import utilities.Logger;
+import utilities.SectionName;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+/**
+ * Keeps memory in indexed SQLite tables. Each list is a table ordered by a position column,
+ * so lists come back in the order they were saved. Stories are indexed by staff ID and by
+ * (year, month), so lookups for one staff member or one month skip the rest of the history.
+ */
+public class SqliteStore implements Store {
+    private static final String[] SCHEMA = {
+            "create table if not exists cookies (position integer primary key, name text not null, value text not null, expires integer not null default 0)",
+            "create table if not exists staff (position integer primary key, id integer not null, first text not null, last text not null)",
+            "create table if not exists stories (position integer primary key, staff_id integer not null, title text not null, month integer not null, year integer not null)",
+            "create table if not exists marks (position integer primary key, staff_id integer not null, title text not null, month integer not null, year integer not null)",
+            "create index if not exists staff_by_id on staff (id)",
+            "create index if not exists stories_by_staff on stories (staff_id, year, month)",
+            "create index if not exists stories_by_date on stories (year, month)"
+    };
+
+    private final File file;
+    private final Store legacy;
+    private final int[] persisted = new int[ListType.values().length];
+    private Connection connection;
+
+    /**
+     * @param file   The database file
+     * @param legacy The store to migrate from when no database exists yet
+     */
+    public SqliteStore(File file, Store legacy) {
+        this.file = file;
+        this.legacy = legacy;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    @Override
+    public void load(Lists lists) throws IOException, JDOMException {
+        try {
+            if (connection != null) connection.close();
+
+            // load the sqlite-JDBC driver using the current class loader
+            Class.forName("org.sqlite.JDBC");
+            if (!file.isFile() && legacy != null && legacy.exists()) {
+                migrate(lists);
+            } else {
+                connection = open(file);
+                Logger.log(SectionName.MEMORY, "Local memory database opened");
+                read(lists);
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Could not open " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Builds the database beside the real one and moves it into place once every list is in, so a
+     * migration cut short leaves no database behind and simply runs again next time
+     */
+    private void migrate(Lists lists) throws IOException, JDOMException, SQLException {
+        Logger.log(SectionName.MEMORY, "Migrating memory to " + file.getName());
+        legacy.load(lists);
+        legacy.close(lists);
+
+        File temporary = new File(file.getPath() + ".tmp");
+        Files.deleteIfExists(temporary.toPath());
+        try (Connection building = open(temporary)) {
+            for (ListType type : ListType.values()) {
+                insert(building, type, lists.get(type), 0);
+            }
+            building.commit();
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        connection = open(file);
+        for (ListType type : ListType.values()) {
+            persisted[type.ordinal()] = lists.get(type).getElements().size();
+        }
+    }
+
+    /**
+     * Connects with autocommit off, creating the schema if the file is new
+     */
+    private static Connection open(File file) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+            addExpiryColumn(statement);
+        }
+        connection.commit();
+        return connection;
+    }
+
+    /**
+     * Writes the entries added since the last save in one transaction, or rewrites the
+     * table if the list was cleared since
+     */
+    @Override
+    public void save(Lists lists, ListType changed) throws IOException {
+        write(lists, changed, false);
+    }
+
+    @Override
+    public void replace(Lists lists, ListType changed) throws IOException {
+        write(lists, changed, true);
+    }
+
+    /**
+     * @param replace Whether to rewrite the whole table rather than only the entries added since the last save
+     */
+    private void write(Lists lists, ListType changed, boolean replace) throws IOException {
+        Manager<? extends Data> manager = lists.get(changed);
+        int size = manager.getElements().size();
+        int from = persisted[changed.ordinal()];
+        boolean cleared = replace || size < from;
+        if (cleared) from = 0;
+        if (!cleared && from == size) return;
+
+        try {
+            if (cleared) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("delete from " + table(changed));
+                }
+            }
+
+            insert(connection, changed, manager, from);
+            connection.commit();
+            persisted[changed.ordinal()] = size;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw new IOException("Could not save " + changed.type(), e);
+        }
+    }
+
+    @Override
+    public ArrayList<Story> findStories(Lists lists, int staffID, int month, int year) throws IOException {
+        ArrayList<Story> stories = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "select title from stories where staff_id = ? and year = ? and month = ? order by position")) {
+            query.setInt(1, staffID);
+            query.setInt(2, year);
+            query.setInt(3, month);
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    stories.add(new Story(staffID, result.getString("title"), new Date(month, year)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not look up stories", e);
+        }
+        return stories;
+    }
+
+    @Override
+    public void close(Lists lists) throws IOException {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Could not close " + file.getName(), e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    /**
+     * Batches the list's entries from the given position onward into the open transaction
+     */
+    private static void insert(Connection connection, ListType type, Manager<? extends Data> manager, int from) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(insert(type))) {
+            for (int i = from; i < manager.getElements().size(); i++) {
+                insert.setInt(1, i);
+                bind(insert, type, manager.getElements().get(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void read(Lists lists) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet result = statement.executeQuery("select name, value, expires from cookies order by position")) {
+                while (result.next()) {
+                    lists.getCookieManager().add(new Cookie(result.getString("name"), result.getString("value"), result.getLong("expires")));
+                }
+            }
+            try (ResultSet result = statement.executeQuery("select id, first, last from staff order by position")) {
+                while (result.next()) {
+                    Name name = new Name(result.getString("first"), result.getString("last"));
+                    lists.getStaffManager().add(new Staff(result.getInt("id"), name));
+                }
+            }
+            try (ResultSet result = statement.executeQuery("select staff_id, title, month, year from stories order by position")) {
+                while (result.next()) {
+                    Date date = new Date(result.getInt("month"), result.getInt("year"));
+                    lists.getStoryManager().add(new Story(result.getInt("staff_id"), result.getString("title"), date));
+                }
+            }
+            try (ResultSet result = statement.executeQuery("select staff_id, title, month, year from marks order by position")) {
+                while (result.next()) {
+                    Date date = new Date(result.getInt("month"), result.getInt("year"));
+                    lists.getMarkManager().add(new Mark(result.getInt("staff_id"), result.getString("title"), date));
+                }
+            }
+        }
+
+        for (ListType type : ListType.values()) {
+            persisted[type.ordinal()] = lists.get(type).getElements().size();
+        }
+    }
+
+    /**
+     * Databases made before cookies kept their expiry lack the column
+     */
+    private static void addExpiryColumn(Statement statement) throws SQLException {
+        try (ResultSet columns = statement.executeQuery("pragma table_info(cookies)")) {
+            while (columns.next()) {
+                if (columns.getString("name").equals("expires")) return;
+            }
+        }
+        statement.execute("alter table cookies add column expires integer not null default 0");
+    }
+
+    private static String table(ListType type) {
+        return switch (type) {
+            case COOKIE_LIST -> "cookies";
+            case STAFF_LIST -> "staff";
+            case STORY_LIST -> "stories";
+            case MARK_LIST -> "marks";
+        };
+    }
+
+    private static String insert(ListType type) {
+        return switch (type) {
+            case COOKIE_LIST -> "insert into cookies (position, name, value, expires) values (?, ?, ?, ?)";
+            case STAFF_LIST -> "insert into staff (position, id, first, last) values (?, ?, ?, ?)";
+            case STORY_LIST -> "insert into stories (position, staff_id, title, month, year) values (?, ?, ?, ?, ?)";
+            case MARK_LIST -> "insert into marks (position, staff_id, title, month, year) values (?, ?, ?, ?, ?)";
+        };
+    }
+
+    private static void bind(PreparedStatement insert, ListType type, Data data) throws SQLException {
+        switch (type) {
+            case COOKIE_LIST -> {
+                Cookie cookie = (Cookie) data;
+                insert.setString(2, cookie.getKey());
+                insert.setString(3, cookie.getValue());
+                insert.setLong(4, cookie.getExpires());
+            }
+            case STAFF_LIST -> {
+                Staff staff = (Staff) data;
+                insert.setInt(2, staff.getId());
+                insert.setString(3, staff.getName().getFirst());
+                insert.setString(4, staff.getName().getLast());
+            }
+            case STORY_LIST -> {
+                Story story = (Story) data;
+                insert.setInt(2, story.getId());
+                insert.setString(3, story.getTitle());
+                insert.setInt(4, story.getDate().getMonth());
+                insert.setInt(5, story.getDate().getYear());
+            }
+            case MARK_LIST -> {
+                Mark mark = (Mark) data;
+                insert.setInt(2, mark.getId());
+                insert.setString(3, mark.getTitle());
+                insert.setInt(4, mark.getDate().getMonth());
+                insert.setInt(5, mark.getDate().getYear());
+            }
+        }
+    }
+}
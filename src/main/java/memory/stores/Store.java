@@ -0,0 +1,60 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.types.Story;
+import org.jdom2.JDOMException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Where the memory lists live between runs
+ */
+public interface Store {
+    /**
+     * Whether anything has been stored yet, so a newer store knows it has something to migrate
+     */
+    boolean exists();
+
+    /**
+     * Fills the lists from storage, creating empty storage if there is none yet
+     */
+    void load(Lists lists) throws IOException, JDOMException;
+
+    /**
+     * Persists the lists after one of them has changed
+     *
+     * @param changed The list that changed
+     */
+    void save(Lists lists, ListType changed) throws IOException;
+
+    /**
+     * Persists a list that was cleared and refilled since it was last saved, in a single write, so there
+     * is never a saved moment where the list is empty. Stores that always write a list whole just save it.
+     *
+     * @param changed The list that was replaced
+     */
+    default void replace(Lists lists, ListType changed) throws IOException {
+        save(lists, changed);
+    }
+
+    /**
+     * Flushes anything still pending once the program is done with memory
+     */
+    default void close(Lists lists) throws IOException {
+    }
+
+    /**
+     * Finds one staff member's stories from one month. Stores without an index scan the list.
+     */
+    default ArrayList<Story> findStories(Lists lists, int staffID, int month, int year) throws IOException {
+        ArrayList<Story> stories = new ArrayList<>();
+        for (Story story : lists.getStoryManager().getElements()) {
+            if (story.getId() == staffID && story.getDate().getMonth() == month && story.getDate().getYear() == year) {
+                stories.add(story);
+            }
+        }
+        return stories;
+    }
+}
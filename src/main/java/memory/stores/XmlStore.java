@@ -0,0 +1,110 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.types.Cookie;
+import memory.types.Mark;
+import memory.types.Staff;
+import memory.types.Story;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import utilities.Logger;
+import utilities.SectionName;
+
+import javax.xml.XMLConstants;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class XmlStore implements Store {
+    private final File file;
+    private final XMLOutputter outputter = new XMLOutputter();
+    private Element root;
+    private Document memoryDocument;
+
+    public XmlStore(File file) {
+        this.file = file;
+        outputter.setFormat(Format.getPrettyFormat());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.isFile();
+    }
+
+    @Override
+    public void load(Lists lists) throws IOException, JDOMException {
+        if (file.createNewFile()) {
+            Logger.log(SectionName.MEMORY, "Local memory file not found");
+
+            memoryDocument = new Document();
+
+            root = new Element("memory");
+            memoryDocument.setRootElement(root);
+
+            for (ListType type : ListType.values()) {
+                root.addContent(lists.get(type).getElement());
+            }
+
+            save();
+        } else {
+            Logger.log(SectionName.MEMORY, "Local memory file found");
+
+            SAXBuilder sax = new SAXBuilder();
+            sax.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            sax.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+
+            memoryDocument = sax.build(file);
+
+            root = memoryDocument.getRootElement();
+
+            Element cookieList = root.getChild(ListType.COOKIE_LIST.type());
+            for (Element cookie : cookieList.getChildren("cookie")) {
+                lists.getCookieManager().add(new Cookie(cookie));
+            }
+
+            Element storyList = root.getChild(ListType.STORY_LIST.type());
+            for (Element story : storyList.getChildren("story")) {
+                lists.getStoryManager().add(new Story(story));
+            }
+
+            Element staffList = root.getChild(ListType.STAFF_LIST.type());
+            for (Element staff : staffList.getChildren("staff")) {
+                lists.getStaffManager().add(new Staff(staff));
+            }
+
+            // Memory files from before incremental refreshes have no mark list yet
+            Element markList = root.getChild(ListType.MARK_LIST.type());
+            if (markList == null) {
+                root.addContent(lists.getMarkManager().getElement());
+            } else {
+                for (Element mark : markList.getChildren("mark")) {
+                    lists.getMarkManager().add(new Mark(mark));
+                }
+            }
+
+            save();
+        }
+    }
+
+    @Override
+    public void save(Lists lists, ListType changed) throws IOException {
+        root.removeChild(changed.type());
+        root.addContent(lists.get(changed).getElement());
+        save();
+    }
+
+    private void save() throws IOException {
+        FileWriter fileWriter = new FileWriter(file);
+        outputter.output(memoryDocument, fileWriter);
+        fileWriter.close();
+    }
+}
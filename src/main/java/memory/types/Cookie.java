@@ -5,21 +5,29 @@ import org.jdom2.Element;
 public class Cookie extends Data {
     private final String key;
     private final String value;
+    private final long expires;
 
-    private final Element element;
+    private Element element;
 
     public Cookie(String key, String value) {
+        this(key, value, 0);
+    }
+
+    /**
+     * @param expires When the cookie expires, in epoch milliseconds, or 0 if unknown
+     */
+    public Cookie(String key, String value, long expires) {
         this.key = key;
         this.value = value;
-
-        this.element = new Element("cookie");
-        this.element.addContent(new Element("key").setText(this.key));
-        this.element.addContent(new Element("value").setText(this.value));
+        this.expires = expires;
     }
 
     public Cookie(Element element) {
         this.key = element.getChild("key").getValue();
         this.value = element.getChild("value").getValue();
+        // Cookies saved before expiry was kept have no expires element
+        Element expires = element.getChild("expires");
+        this.expires = expires == null ? 0 : Long.parseLong(expires.getValue());
 
         this.element = element;
     }
@@ -32,8 +40,25 @@ public class Cookie extends Data {
         return value;
     }
 
+    public long getExpires() {
+        return expires;
+    }
+
+    /**
+     * Whether the cookie is known to have expired by the given time. A cookie with no known expiry never has.
+     */
+    public boolean isExpired(long now) {
+        return expires != 0 && expires <= now;
+    }
+
     @Override
     public Element getElement() {
+        if (element == null) {
+            element = new Element("cookie");
+            element.addContent(new Element("key").setText(this.key));
+            element.addContent(new Element("value").setText(this.value));
+            element.addContent(new Element("expires").setText(String.valueOf(this.expires)));
+        }
         return element;
     }
 }
@@ -3,6 +3,9 @@ package memory.types;
 import org.jdom2.Element;
 
 public abstract class Data {
+    /**
+     * The record as XML. Records read from a binary store build it on first call, since only XML output needs it.
+     */
     public abstract Element getElement();
 
 }
@@ -6,15 +6,11 @@ public class Date extends Data {
     private final int month;
     private final int year;
 
-    private final Element element;
+    private Element element;
 
     public Date(int month, int year) {
         this.month = month;
         this.year = year;
-
-        this.element = new Element("date");
-        this.element.addContent(new Element("month").setText(String.valueOf(this.month)));
-        this.element.addContent(new Element("year").setText(String.valueOf(this.year)));
     }
 
     public Date(Element element) {
@@ -24,8 +20,21 @@ public class Date extends Data {
         this.element = element;
     }
 
+    public int getMonth() {
+        return month;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
     @Override
     public Element getElement() {
+        if (element == null) {
+            element = new Element("date");
+            element.addContent(new Element("month").setText(String.valueOf(this.month)));
+            element.addContent(new Element("year").setText(String.valueOf(this.year)));
+        }
         return element;
     }
 
@@ -0,0 +1,59 @@
+package memory.types;
+
+import org.jdom2.Element;
+
+/**
+ * The newest story seen for a staff member, used to stop paginating once a refresh reaches known posts
+ */
+public class Mark extends Data {
+    private final int id;
+    private final String title;
+    private final Date date;
+
+    private Element element;
+
+    public Mark(int id, String title, Date date) {
+        this.id = id;
+        this.title = title;
+        this.date = date;
+    }
+
+    public Mark(Story story) {
+        this(story.getId(), story.getTitle(), new Date(story.getDate().getMonth(), story.getDate().getYear()));
+    }
+
+    public Mark(Element element) {
+        this.id = Integer.parseInt(element.getChild("id").getValue());
+        this.title = element.getChild("name").getValue();
+        this.date = new Date(element.getChild("date"));
+
+        this.element = element;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public boolean matches(String title, int month, int year) {
+        return date.getMonth() == month && date.getYear() == year && this.title.equals(title);
+    }
+
+    @Override
+    public Element getElement() {
+        if (element == null) {
+            element = new Element("mark");
+            element.addContent(new Element("id").setText(String.valueOf(this.id)));
+            element.addContent(new Element("name").setText(this.title));
+            element.addContent(this.date.getElement());
+        }
+        return element;
+    }
+}
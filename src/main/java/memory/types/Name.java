@@ -6,7 +6,7 @@ public class Name extends Data {
     private final String first;
     private final String last;
 
-    private final Element element;
+    private Element element;
 
     public Name(String full) {
         String[] parsed = full.split(" ");
@@ -17,10 +17,11 @@ public class Name extends Data {
         } else {
             this.last = "X";
         }
+    }
 
-        this.element = new Element("name");
-        this.element.addContent(new Element("first").setText(this.first));
-        this.element.addContent(new Element("last").setText(this.last));
+    public Name(String first, String last) {
+        this.first = first;
+        this.last = last;
     }
 
     public Name(Element element) {
@@ -30,12 +31,25 @@ public class Name extends Data {
         this.element = element;
     }
 
+    public String getFirst() {
+        return first;
+    }
+
+    public String getLast() {
+        return last;
+    }
+
     public String getFull() {
         return first + " " + last.charAt(0) + ".";
     }
 
     @Override
     public Element getElement() {
+        if (element == null) {
+            element = new Element("name");
+            element.addContent(new Element("first").setText(this.first));
+            element.addContent(new Element("last").setText(this.last));
+        }
         return element;
     }
 }
@@ -6,7 +6,7 @@ public class Staff extends Data {
     private final int id;
     private final Name name;
 
-    private final Element element;
+    private Element element;
 
     public Staff(Element element) {
         this.id = Integer.parseInt(element.getChild("id").getValue());
@@ -16,12 +16,12 @@ public class Staff extends Data {
     }
 
     public Staff(int id, String name) {
-        this.id = id;
-        this.name = new Name(name);
+        this(id, new Name(name));
+    }
 
-        this.element = new Element("staff");
-        this.element.addContent(new Element("id").setText(String.valueOf(this.id)));
-        this.element.addContent(this.name.getElement());
+    public Staff(int id, Name name) {
+        this.id = id;
+        this.name = name;
     }
 
     public Name getName() {
@@ -34,6 +34,11 @@ public class Staff extends Data {
 
     @Override
     public Element getElement() {
+        if (element == null) {
+            element = new Element("staff");
+            element.addContent(new Element("id").setText(String.valueOf(this.id)));
+            element.addContent(this.name.getElement());
+        }
         return element;
     }
 }
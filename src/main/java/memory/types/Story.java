@@ -7,17 +7,12 @@ public class Story extends Data {
     private final String title;
     private final Date date;
 
-    private final Element element;
+    private Element element;
 
     public Story(int id, String title, Date date) {
         this.id = id;
         this.title = title;
         this.date = date;
-
-        this.element = new Element("story");
-        this.element.addContent(new Element("id").setText(String.valueOf(this.id)));
-        this.element.addContent(new Element("name").setText(this.title));
-        this.element.addContent(this.date.getElement());
     }
 
     public Story(Element element) {
@@ -32,12 +27,22 @@ public class Story extends Data {
         return id;
     }
 
+    public String getTitle() {
+        return title;
+    }
+
     public Date getDate() {
         return date;
     }
 
     @Override
     public Element getElement() {
+        if (element == null) {
+            element = new Element("story");
+            element.addContent(new Element("id").setText(String.valueOf(this.id)));
+            element.addContent(new Element("name").setText(this.title));
+            element.addContent(this.date.getElement());
+        }
         return element;
     }
 }
\ No newline at end of file
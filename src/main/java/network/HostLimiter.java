@@ -0,0 +1,25 @@
+package network;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+public class HostLimiter {
+    private final int permits;
+    private final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    public HostLimiter(int permits) {
+        this.permits = Math.max(1, permits);
+    }
+
+    public void acquire(String host) throws InterruptedException {
+        semaphore(host).acquire();
+    }
+
+    public void release(String host) {
+        semaphore(host).release();
+    }
+
+    private Semaphore semaphore(String host) {
+        return hosts.computeIfAbsent(host, key -> new Semaphore(permits, true));
+    }
+}
@@ -0,0 +1,30 @@
+package network;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * An error status from the server, kept apart from connection failures so callers can tell
+ * a 404 (give up) from a 429 or a 503 (slow down and try again).
+ */
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public HttpStatusException(int statusCode, String url, Duration retryAfter) {
+        super("Server returned HTTP response code: " + statusCode + " for URL: " + url);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return How long the server asked us to wait, or null if it did not say
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
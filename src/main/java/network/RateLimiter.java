@@ -0,0 +1,119 @@
+package network;
+
+import utilities.Metrics;
+import utilities.SectionName;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket whose rate follows the server (AIMD).
+ * <p>
+ * Each success adds 1/rate to the rate, so it climbs by about one request per second every second.
+ * A throttling status, a server error, a failed connection or latency drifting past twice its best
+ * halves the rate, at most once per second so a burst of bad answers counts as one signal.
+ * A Retry-After from the server also stops the bucket until that time.
+ */
+public class RateLimiter {
+    public static final double DEFAULT_RATE = 4;
+    public static final double DEFAULT_MAX_RATE = 50;
+    private static final double MIN_RATE = 0.5;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final double SLOW_FACTOR = 2;
+    // Lets the best latency creep up, so a server that got slower for good stops counting as congested
+    private static final double BEST_LATENCY_DRIFT = 1.01;
+    private static final long DECREASE_INTERVAL = 1_000_000_000L;
+
+    private final double maxRate;
+    private double rate;
+    private double tokens = 1;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+    private long decreasedAt = refilledAt - DECREASE_INTERVAL;
+    private double latency = -1;
+    private double bestLatency = Double.MAX_VALUE / BEST_LATENCY_DRIFT;
+
+    public RateLimiter() {
+        this(DEFAULT_RATE, DEFAULT_MAX_RATE);
+    }
+
+    /**
+     * @param rate    Requests per second to start at
+     * @param maxRate Requests per second never to go past
+     */
+    public RateLimiter(double rate, double maxRate) {
+        this.maxRate = Math.max(MIN_RATE, maxRate);
+        this.rate = Math.min(this.maxRate, Math.max(MIN_RATE, rate));
+    }
+
+    /**
+     * Blocks until a request may be sent
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (now >= pausedUntil && tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                wait = Math.max(pausedUntil - now, (long) ((1 - tokens) / rate * 1e9));
+            }
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Feeds back how a request went
+     *
+     * @param retryAfter How long the server asked us to wait, or null
+     */
+    public synchronized void onResponse(int statusCode, long latencyNanos, Duration retryAfter) {
+        long now = System.nanoTime();
+        if (retryAfter != null) {
+            pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+        }
+
+        if (statusCode == 429 || statusCode == 503) {
+            Metrics.count(SectionName.NETWORK, "throttled");
+            decrease(now);
+        } else if (statusCode >= 500) {
+            decrease(now);
+        } else {
+            latency = latency < 0 ? latencyNanos : latency + LATENCY_SMOOTHING * (latencyNanos - latency);
+            bestLatency = Math.min(latency, bestLatency * BEST_LATENCY_DRIFT);
+            if (latency > bestLatency * SLOW_FACTOR) {
+                decrease(now);
+            } else {
+                rate = Math.min(maxRate, rate + 1 / rate);
+            }
+        }
+    }
+
+    /**
+     * Feeds back a request that never got an answer
+     */
+    public synchronized void onFailure() {
+        decrease(System.nanoTime());
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        // The bucket holds at most one second's worth of requests, and never less than one
+        tokens = Math.min(Math.max(1, rate), tokens + (now - refilledAt) / 1e9 * rate);
+        refilledAt = now;
+    }
+
+    private void decrease(long now) {
+        if (now - decreasedAt < DECREASE_INTERVAL) return;
+        decreasedAt = now;
+        rate = Math.max(MIN_RATE, rate * DECREASE_FACTOR);
+        tokens = Math.min(tokens, Math.max(1, rate));
+    }
+}
@@ -0,0 +1,72 @@
+package network;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+
+public class Response {
+    private final URI requestURI;
+    private final URI uri;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final String body;
+    private final boolean unchanged;
+
+    public Response(URI requestURI, URI uri, int statusCode, HttpHeaders headers, String body) {
+        this(requestURI, uri, statusCode, headers, body, false);
+    }
+
+    public Response(URI requestURI, URI uri, int statusCode, HttpHeaders headers, String body, boolean unchanged) {
+        this.requestURI = requestURI;
+        this.uri = uri;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+        this.unchanged = unchanged;
+    }
+
+    public URI getRequestURI() {
+        return requestURI;
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Whether the server sent us somewhere other than the page we asked for
+     */
+    public boolean isRedirected() {
+        return !requestURI.equals(uri);
+    }
+
+    /**
+     * Whether the server sent us to the WordPress login page, which is what it does once our cookies stop working
+     */
+    public boolean isLoginPage() {
+        return isLoginPage(uri);
+    }
+
+    static boolean isLoginPage(URI uri) {
+        String path = uri.getPath();
+        return path != null && path.endsWith("/wp-login.php");
+    }
+
+    /**
+     * Whether the page is identical to the copy in the response cache from an earlier run
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+}
@@ -0,0 +1,219 @@
+package network;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An on-disk cache of fetched pages, keyed by URL (which carries the author and page number).
+ * <p>
+ * Each entry remembers the validators the server sent along with a hash of the body, so
+ * Transport can make conditional requests and tell the scrapers when a page has not changed.
+ * Entries are evicted least recently used first once the cache outgrows its size limit.
+ * <p>
+ * Pages fetched during a run are only staged. They stand in for their URL once {@link #commit()} is called,
+ * after whatever was parsed from them has been saved, so "unchanged" always means unchanged since a refresh
+ * that made it to disk.
+ */
+public class ResponseCache {
+    public static final File DEFAULT_DIRECTORY = new File(".torch-cache");
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String INDEX = "index";
+    private static final String PAGE = ".page";
+    private static final String STAGED = ".staged";
+
+    private final File directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> staged = new LinkedHashMap<>();
+    private long totalBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public ResponseCache() throws IOException {
+        this(DEFAULT_DIRECTORY, DEFAULT_MAX_BYTES);
+    }
+
+    public ResponseCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory " + directory.getAbsolutePath());
+        }
+        load();
+    }
+
+    public synchronized Entry lookup(String url) {
+        Entry entry = entries.get(url);
+        if (entry != null && !bodyFile(entry).isFile()) {
+            remove(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    public String readBody(Entry entry) throws IOException {
+        return Files.readString(bodyFile(entry).toPath(), UTF_8);
+    }
+
+    /**
+     * Stages a fetched page. Its body is written beside the committed one, which stays what lookups see until commit.
+     */
+    public synchronized void store(String url, String etag, String lastModified, String body, String hash) throws IOException {
+        Entry entry = new Entry(url, etag, lastModified, hash, body.getBytes(UTF_8).length);
+        Entry committed = entries.get(url);
+        if (committed == null || !committed.hash.equals(hash)) {
+            Files.writeString(stagedFile(entry).toPath(), body, UTF_8);
+        } else {
+            Files.deleteIfExists(stagedFile(entry).toPath());
+        }
+        staged.put(url, entry);
+    }
+
+    /**
+     * Drops the staged pages whose URL starts with the prefix, as when what was parsed from them could not be saved
+     */
+    public synchronized void discard(String prefix) throws IOException {
+        Iterator<Entry> pending = staged.values().iterator();
+        while (pending.hasNext()) {
+            Entry entry = pending.next();
+            if (!entry.url.startsWith(prefix)) continue;
+            pending.remove();
+            Files.deleteIfExists(stagedFile(entry).toPath());
+        }
+    }
+
+    /**
+     * Makes every staged page the cached copy of its URL, then evicts down to the size limit
+     */
+    public synchronized void commit() throws IOException {
+        for (Entry entry : staged.values()) {
+            File body = stagedFile(entry);
+            if (body.isFile()) {
+                Files.move(body.toPath(), bodyFile(entry).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Entry previous = entries.remove(entry.url);
+            if (previous != null) totalBytes -= previous.size;
+            entries.put(entry.url, entry);
+            totalBytes += entry.size;
+        }
+        staged.clear();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            totalBytes -= evicted.size;
+            //noinspection ResultOfMethodCallIgnored
+            bodyFile(evicted).delete();
+        }
+    }
+
+    public synchronized void recordHit() {
+        hits++;
+    }
+
+    public synchronized void recordMiss() {
+        misses++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Writes the index of committed pages, least recently used entry first, so the LRU order survives between runs
+     */
+    public synchronized void save() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(directory, INDEX), UTF_8))) {
+            for (Entry entry : entries.values()) {
+                writer.write(String.join("\t", entry.url, entry.etag, entry.lastModified, entry.hash, String.valueOf(entry.size)));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static String hash(String body) {
+        return DigestUtils.sha256Hex(body);
+    }
+
+    private void load() throws IOException {
+        // Staged pages left by a run that never committed belong to no entry
+        File[] leftovers = directory.listFiles((dir, name) -> name.endsWith(STAGED));
+        if (leftovers != null) {
+            for (File leftover : leftovers) Files.deleteIfExists(leftover.toPath());
+        }
+
+        File index = new File(directory, INDEX);
+        if (!index.isFile()) return;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(index, UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 5) continue;
+                Entry entry = new Entry(fields[0], fields[1], fields[2], fields[3], Long.parseLong(fields[4]));
+                entries.put(entry.url, entry);
+                totalBytes += entry.size;
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.url);
+        totalBytes -= entry.size;
+    }
+
+    private File bodyFile(Entry entry) {
+        return new File(directory, DigestUtils.sha256Hex(entry.url) + PAGE);
+    }
+
+    private File stagedFile(Entry entry) {
+        return new File(directory, DigestUtils.sha256Hex(entry.url) + STAGED);
+    }
+
+    public static class Entry {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final String hash;
+        private final long size;
+
+        private Entry(String url, String etag, String lastModified, String hash, long size) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package network;
+
+import utilities.LogLevel;
+import utilities.Logger;
+import utilities.Metrics;
+import utilities.SectionName;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries a failed task with jittered exponential backoff.
+ * <p>
+ * Attempt n waits a random time between zero and base * 2^(n-1), capped at the max, so workers that failed
+ * together do not all come back together. A server's Retry-After is honored when it asks for longer.
+ * Only failures that might pass on their own are retried: dropped connections, timeouts, 429 and 5xx.
+ */
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, Duration.ofMillis(500), Duration.ofSeconds(30));
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private final int attempts;
+    private final long baseMillis;
+    private final long maxMillis;
+
+    public RetryPolicy(int attempts, Duration base, Duration max) {
+        this.attempts = Math.max(1, attempts);
+        this.baseMillis = base.toMillis();
+        this.maxMillis = max.toMillis();
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @param what Names the task in the warning logged before each retry
+     */
+    public <T> T run(String what, WorkerPool.Task<T> task) throws IOException, URISyntaxException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.call();
+            } catch (IOException e) {
+                if (attempt >= attempts || !isRetryable(e)) throw e;
+
+                long delay = delay(attempt, e);
+                Metrics.count(SectionName.NETWORK, "retries");
+                Logger.log(SectionName.NETWORK, LogLevel.WARN, what + " failed (" + e.getMessage() + "), retry " + attempt + " in " + delay + "ms");
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting to retry " + what, interrupted);
+                }
+            }
+        }
+    }
+
+    public static boolean isRetryable(IOException e) {
+        if (Thread.currentThread().isInterrupted()) return false;
+        if (e instanceof SessionExpiredException) return false;
+        if (e instanceof HttpStatusException status) {
+            return status.getStatusCode() == 429 || status.getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    private long delay(int attempt, IOException e) {
+        long ceiling = Math.min(maxMillis, baseMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (e instanceof HttpStatusException status && status.getRetryAfter() != null) {
+            delay = Math.max(delay, status.getRetryAfter().toMillis());
+        }
+        return delay;
+    }
+}
@@ -0,0 +1,127 @@
+package network;
+
+import utilities.LogLevel;
+import utilities.Logger;
+import utilities.Metrics;
+import utilities.SectionName;
+
+import java.io.IOException;
+
+/**
+ * The cookies every request is sent with, and how to get new ones when the server stops accepting them.
+ * <p>
+ * The first worker to be sent to the login page holds every other request at {@link #current(String)} while
+ * the Refresher gets new cookies. Requests already in flight with the old cookies come back to
+ * {@link #renew(Credentials, String)}, see the cookies have changed since they were sent, and simply go again.
+ */
+public class Session {
+    // A browser that keeps handing out cookies the server rejects is not going to start working
+    private static final int MAX_REFRESHES = 3;
+
+    private String cookies;
+    private int generation = 0;
+    private int refreshes = 0;
+    private boolean refreshing = false;
+    private boolean expired = false;
+    private volatile Refresher refresher;
+
+    public Session(String cookies) {
+        this.cookies = cookies;
+    }
+
+    /**
+     * Replaces the cookies outright, as when the user logs in again
+     */
+    public synchronized void setCookies(String cookies) {
+        this.cookies = cookies;
+        this.generation++;
+        this.expired = false;
+    }
+
+    public void setRefresher(Refresher refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * @return The cookies to send, once any refresh under way has finished
+     */
+    synchronized Credentials current(String url) throws IOException {
+        awaitRefresh();
+        if (expired) throw new SessionExpiredException(url);
+        return new Credentials(cookies, generation);
+    }
+
+    /**
+     * Gets cookies to replace ones the server turned away, unless another worker already has
+     *
+     * @param stale The credentials the rejected request was sent with
+     * @return Credentials to try the request again with
+     */
+    Credentials renew(Credentials stale, String url) throws IOException {
+        Refresher refresher = this.refresher;
+        synchronized (this) {
+            awaitRefresh();
+            if (generation != stale.generation()) return new Credentials(cookies, generation);
+            if (refresher == null || expired || refreshes >= MAX_REFRESHES) {
+                expired = true;
+                throw new SessionExpiredException(url);
+            }
+            refreshing = true;
+        }
+
+        String fresh = null;
+        try {
+            Logger.log(SectionName.NETWORK, LogLevel.WARN, "Logged out while fetching " + url + ", holding requests while cookies are refreshed");
+            Metrics.count(SectionName.NETWORK, "session_refreshes");
+            fresh = refresher.refresh();
+        } finally {
+            synchronized (this) {
+                refreshing = false;
+                if (fresh != null && !fresh.equals(cookies)) {
+                    cookies = fresh;
+                    generation++;
+                    refreshes++;
+                } else {
+                    expired = true;
+                }
+                notifyAll();
+            }
+        }
+
+        if (fresh == null || fresh.equals(stale.cookies())) throw new SessionExpiredException(url);
+        Logger.log(SectionName.NETWORK, "Cookies refreshed, resuming requests");
+        return current(url);
+    }
+
+    /**
+     * Whether an error status means the cookies were refused. A 403 is left out, as WordPress also
+     * sends it to a logged in user for pages their role cannot see.
+     */
+    static boolean isAuthFailure(HttpStatusException e) {
+        return e.getStatusCode() == 401;
+    }
+
+    private void awaitRefresh() throws IOException {
+        while (refreshing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for cookies to be refreshed", e);
+            }
+        }
+    }
+
+    record Credentials(String cookies, int generation) {
+    }
+
+    @FunctionalInterface
+    public interface Refresher {
+        /**
+         * Called on a worker thread while every other request waits
+         *
+         * @return A new Cookie header, or null if none could be had
+         */
+        String refresh() throws IOException;
+    }
+}
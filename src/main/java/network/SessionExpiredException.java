@@ -0,0 +1,13 @@
+package network;
+
+import java.io.IOException;
+
+/**
+ * We were logged out and could not log back in, so every page from here on would be the login page.
+ * Scrapers let this end the run rather than skip the page, since skipping would skip everything after it too.
+ */
+public class SessionExpiredException extends IOException {
+    public SessionExpiredException(String url) {
+        super("Logged out of The Torch while fetching " + url + " and could not get fresh cookies");
+    }
+}
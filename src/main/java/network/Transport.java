@@ -0,0 +1,198 @@
+package network;
+
+import utilities.Metrics;
+import utilities.SectionName;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * One HTTP client shared by every scraper, so connections to The Torch are opened once
+ * and kept alive (or multiplexed over HTTP/2) for the whole run.
+ */
+public class Transport {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final ResponseCache cache;
+    private final RateLimiter limiter;
+    private final RetryPolicy retries;
+    private final Session session;
+
+    /**
+     * @param cache The page cache, or null to always fetch pages whole
+     */
+    public Transport(String cookies, ResponseCache cache, RateLimiter limiter, RetryPolicy retries) {
+        this.session = new Session(cookies);
+        this.cache = cache;
+        this.limiter = limiter;
+        this.retries = retries;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    public void setCookies(String cookies) {
+        session.setCookies(cookies);
+    }
+
+    /**
+     * Lets requests that find we have been logged out get new cookies and carry on, instead of failing
+     */
+    public void setRefresher(Session.Refresher refresher) {
+        session.setRefresher(refresher);
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    public RateLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Fetches a page at the pace the rate limiter allows, retrying failures the retry policy deems transient
+     */
+    public Response get(String url) throws IOException, URISyntaxException {
+        return retries.run(url, () -> fetchSignedIn(url));
+    }
+
+    /**
+     * Fetches a page, and whenever the server sends us to the login page or refuses the cookies,
+     * waits for the session to renew them and fetches it again. The login page is never handed back
+     * as the page asked for: with no way to renew the cookies this fails with SessionExpiredException.
+     */
+    private Response fetchSignedIn(String url) throws IOException, URISyntaxException {
+        Session.Credentials credentials = session.current(url);
+        while (true) {
+            try {
+                Response response = fetch(url, credentials.cookies());
+                if (!response.isLoginPage()) return response;
+            } catch (HttpStatusException e) {
+                if (!Session.isAuthFailure(e)) throw e;
+            }
+            credentials = session.renew(credentials, url);
+        }
+    }
+
+    private Response fetch(String url, String cookies) throws IOException, URISyntaxException {
+        ResponseCache.Entry cached = cache == null ? null : cache.lookup(url);
+        HttpRequest request = buildRequest(url, cookies, cached);
+        acquire(url);
+
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        } catch (IOException e) {
+            limiter.onFailure();
+            throw e;
+        }
+
+        limiter.onResponse(response.statusCode(), System.nanoTime() - start, retryAfter(response));
+        return toResponse(request, response, cached);
+    }
+
+    private void acquire(String url) throws IOException {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+    }
+
+    /**
+     * Reads a Retry-After given in seconds. The HTTP-date form is rare enough from WordPress to ignore.
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse("");
+        try {
+            return value.isEmpty() ? null : Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private HttpRequest buildRequest(String url, String cookies, ResponseCache.Entry cached) throws URISyntaxException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(new URI(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept-Charset", UTF_8.name())
+                .header("Accept-Encoding", "gzip, deflate")
+                .header("Cookie", cookies);
+
+        if (cached != null) {
+            if (!cached.getEtag().isEmpty()) builder.header("If-None-Match", cached.getEtag());
+            if (!cached.getLastModified().isEmpty()) builder.header("If-Modified-Since", cached.getLastModified());
+        }
+
+        return builder.GET().build();
+    }
+
+    private Response toResponse(HttpRequest request, HttpResponse<byte[]> response, ResponseCache.Entry cached) throws IOException {
+        Metrics.count(SectionName.NETWORK, "requests");
+        Metrics.count(SectionName.NETWORK, "bytes_received", response.body().length);
+
+        if (response.statusCode() == 304 && cached != null) {
+            cache.recordHit();
+            return new Response(request.uri(), response.uri(), response.statusCode(), response.headers(), cache.readBody(cached), true);
+        }
+
+        if (response.statusCode() >= 400) {
+            Metrics.count(SectionName.NETWORK, "http_errors");
+            throw new HttpStatusException(response.statusCode(), request.uri().toString(), retryAfter(response));
+        }
+
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        String body;
+        try (InputStream stream = decode(encoding, new ByteArrayInputStream(response.body()))) {
+            body = new String(stream.readAllBytes(), UTF_8);
+        }
+
+        boolean unchanged = false;
+        // A login page is not what lives at the address we asked for, so it must not stand in for it next run
+        if (cache != null && !Response.isLoginPage(response.uri())) {
+            // Servers that ignore the validators still send the same bytes for an unchanged page
+            String hash = ResponseCache.hash(body);
+            unchanged = cached != null && cached.getHash().equals(hash);
+            if (unchanged) {
+                cache.recordHit();
+            } else {
+                cache.recordMiss();
+            }
+            cache.store(request.uri().toString(),
+                    response.headers().firstValue("ETag").orElse(""),
+                    response.headers().firstValue("Last-Modified").orElse(""),
+                    body,
+                    hash);
+        }
+
+        return new Response(request.uri(), response.uri(), response.statusCode(), response.headers(), body, unchanged);
+    }
+
+    private static InputStream decode(String encoding, InputStream stream) throws IOException {
+        return switch (encoding.trim().toLowerCase()) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(stream);
+            case "deflate" -> new InflaterInputStream(stream);
+            default -> stream;
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package network;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of scraping workers. Every task is tagged with the host it talks to,
+ * and no more than the host limit of tasks may hit one host at the same time.
+ * <p>
+ * Workers are daemon platform threads rather than virtual threads, which would need Java 21; the build targets 17.
+ */
+public class WorkerPool implements AutoCloseable {
+    private final ExecutorService executor;
+    private final HostLimiter hostLimiter;
+
+    /**
+     * A pool whose workers may all talk to the same host at once
+     */
+    public WorkerPool(int workers) {
+        this(workers, workers);
+    }
+
+    public WorkerPool(int workers, int hostLimit) {
+        workers = Math.max(1, workers);
+        this.hostLimiter = new HostLimiter(Math.min(workers, hostLimit));
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "scraper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> Future<T> submit(String host, Task<T> task) {
+        return executor.submit(() -> {
+            hostLimiter.acquire(host);
+            try {
+                return task.call();
+            } finally {
+                hostLimiter.release(host);
+            }
+        });
+    }
+
+    /**
+     * Waits for a task and rethrows whatever the task itself threw
+     */
+    public static <T> T await(Future<T> future) throws IOException, URISyntaxException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a worker", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof URISyntaxException uriSyntaxException) throw uriSyntaxException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws IOException, URISyntaxException;
+    }
+}
@@ -0,0 +1,98 @@
+package reports;
+
+import sections.Pivot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes pivots as delimited rows (tab or comma separated), with a blank line between pivots.
+ * Rows are built straight into a large buffer, which is only flushed when full or when asked.
+ */
+public class DelimitedSink implements ReportSink {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BufferedWriter writer;
+    private final char separator;
+    private final boolean trailingSeparator;
+    private boolean first = true;
+
+    /**
+     * @param trailingSeparator Whether every cell, including the last, is followed by the separator,
+     *                          as the tab separated console output always has been
+     */
+    public DelimitedSink(OutputStream out, char separator, boolean trailingSeparator) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8), BUFFER_SIZE);
+        this.separator = separator;
+        this.trailingSeparator = trailingSeparator;
+    }
+
+    @Override
+    public void write(Pivot pivot) throws IOException {
+        if (!first) writer.newLine();
+        first = false;
+
+        cell("Name", false);
+        for (int column = 0; column < pivot.columns(); column++) {
+            cell(pivot.column(column), false);
+        }
+        cell("Total:", true);
+
+        for (int row = 0; row < pivot.rows(); row++) {
+            cell(pivot.name(row), false);
+            for (int column = 0; column < pivot.columns(); column++) {
+                cell(pivot.cell(row, column), false);
+            }
+            cell(pivot.rowTotal(row), true);
+        }
+
+        cell("Total:", false);
+        for (int column = 0; column < pivot.columns(); column++) {
+            cell(pivot.columnTotal(column), false);
+        }
+        cell(pivot.total(), true);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void cell(String value, boolean last) throws IOException {
+        if (separator == ',' && needsQuoting(value)) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+        end(last);
+    }
+
+    private void cell(int value, boolean last) throws IOException {
+        writer.write(Integer.toString(value));
+        end(last);
+    }
+
+    private void end(boolean last) throws IOException {
+        if (!last || trailingSeparator) writer.write(separator);
+        if (last) writer.newLine();
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
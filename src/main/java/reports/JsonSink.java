@@ -0,0 +1,72 @@
+package reports;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import sections.Pivot;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams pivots as a JSON document of the form
+ * {"pivots": [{"title", "columns", "rows": [{"name", "counts", "total"}], "totals", "total"}]}
+ */
+public class JsonSink implements ReportSink {
+    private final JsonGenerator generator;
+
+    public JsonSink(OutputStream out) throws IOException {
+        this.generator = new ObjectMapper().getFactory()
+                .createGenerator(new BufferedOutputStream(out, DelimitedSink.BUFFER_SIZE), JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("pivots");
+    }
+
+    @Override
+    public void write(Pivot pivot) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", pivot.getTitle());
+
+        generator.writeArrayFieldStart("columns");
+        for (int column = 0; column < pivot.columns(); column++) {
+            generator.writeString(pivot.column(column));
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("rows");
+        for (int row = 0; row < pivot.rows(); row++) {
+            generator.writeStartObject();
+            generator.writeStringField("name", pivot.name(row));
+            generator.writeArrayFieldStart("counts");
+            for (int column = 0; column < pivot.columns(); column++) {
+                generator.writeNumber(pivot.cell(row, column));
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("total", pivot.rowTotal(row));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("totals");
+        for (int column = 0; column < pivot.columns(); column++) {
+            generator.writeNumber(pivot.columnTotal(column));
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("total", pivot.total());
+
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+}
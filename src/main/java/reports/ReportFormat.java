@@ -0,0 +1,40 @@
+package reports;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ReportFormat {
+    TSV("tsv"),
+    CSV("csv"),
+    JSON("json");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return this.extension;
+    }
+
+    public ReportSink open(OutputStream out) throws IOException {
+        return switch (this) {
+            case TSV -> new DelimitedSink(out, '\t', true);
+            case CSV -> new DelimitedSink(out, ',', false);
+            case JSON -> new JsonSink(out);
+        };
+    }
+
+    /**
+     * Picks a format from a file's extension, defaulting to tab separated
+     */
+    public static ReportFormat of(File file) {
+        String name = file.getName().toLowerCase();
+        for (ReportFormat format : values()) {
+            if (name.endsWith("." + format.extension)) return format;
+        }
+        return TSV;
+    }
+}
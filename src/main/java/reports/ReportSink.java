@@ -0,0 +1,14 @@
+package reports;
+
+import sections.Pivot;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Somewhere a report can be streamed to, one pivot at a time
+ */
+public interface ReportSink extends Closeable, Flushable {
+    void write(Pivot pivot) throws IOException;
+}
@@ -2,28 +2,71 @@ package sections;
 
 import cmonster.browsers.Browser;
 import memory.DocumentManager;
+import memory.StoreFormat;
 import memory.types.Cookie;
+import memory.types.Mark;
 import memory.types.Staff;
 import memory.types.Story;
+import network.HttpStatusException;
+import network.RateLimiter;
+import network.ResponseCache;
+import network.RetryPolicy;
+import network.SessionExpiredException;
+import network.Transport;
 import org.jdom2.JDOMException;
+import utilities.Config;
+import utilities.LogLevel;
 import utilities.Logger;
+import utilities.Metrics;
+import utilities.Phase;
 import utilities.SectionName;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Set;
 
 public class Assessor {
-    private final DocumentManager documentManager = new DocumentManager();
+    private static final String PROFILE_URL = "https://shsthetorch.com/wp-admin/profile.php";
+
+    private final DocumentManager documentManager;
+    private final Config config;
+    private int workers = 0;
+    private Transport transport;
+    private Browser browser;
+    private boolean browserChosen = false;
+    private boolean renewable = false;
 
     public Assessor() throws IOException, JDOMException {
+        this(Config.parse(new String[0]));
+    }
+
+    public Assessor(Config config) throws IOException, JDOMException {
+        this.config = config;
+        this.documentManager = new DocumentManager(storeFormat(config));
+    }
+
+    /**
+     * The store.format setting. Each format migrates from the one before it (XML, BINARY, JOURNAL, SQLITE)
+     * on first use; switching back reads whatever the older format last held.
+     */
+    private static StoreFormat storeFormat(Config config) {
+        String value = config.get("store.format", StoreFormat.JOURNAL.name());
+        try {
+            return StoreFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Setting store.format must be XML, BINARY, JOURNAL or SQLITE, not " + value);
+        }
     }
 
     public void run() throws IOException, URISyntaxException {
         retrieveCookies();
-        if (Logger.askYesOrNo(SectionName.ASSESSOR, "Use cached staff?")) {
-            if (!Logger.askYesOrNo(SectionName.ASSESSOR, "Use cached stories?")) {
+        if (config.askYesOrNo(SectionName.ASSESSOR, "staff.cached", "Use cached staff?", true)) {
+            if (!config.askYesOrNo(SectionName.ASSESSOR, "stories.cached", "Use cached stories?", false)) {
                 retrieveStories();
             }
         } else {
@@ -31,26 +74,160 @@ public class Assessor {
             retrieveStories();
         }
 
-        Counter counter = new Counter(documentManager.getStaffList(), documentManager.getStoriesList());
+        if (transport != null && transport.getCache() != null) {
+            // Only now that the stories parsed from them are saved may this run's pages stand in for them next time
+            ResponseCache cache = transport.getCache();
+            cache.commit();
+            cache.save();
+            Logger.log(SectionName.NETWORK, "Page cache: " + cache.getHits() + " unchanged, " + cache.getMisses() + " changed");
+        }
+        if (transport != null) {
+            Logger.log(SectionName.NETWORK, String.format("Request rate settled at %.1f per second", transport.getLimiter().getRate()));
+        }
+
+        int[] window = null;
+        if (config.has("report.schoolYear")) {
+            window = Report.schoolYearWindow(config.askNumber(SectionName.ASSESSOR, "report.schoolYear", null, null));
+        }
+        Counter counter = new Counter(documentManager.getStaffList(), documentManager.getStoriesList(), window);
         counter.run();
+
+        boolean export = config.has("report.output")
+                || config.askYesOrNo(SectionName.ASSESSOR, "report.export", "Export the report to a file?", false);
+        if (export) {
+            File file = new File(config.askString(SectionName.ASSESSOR, "report.output", "Enter file name (.tsv, .csv or .json)", null));
+            counter.export(file);
+            Logger.log(SectionName.ASSESSOR, "Report written to " + file.getAbsolutePath());
+        }
+
+        if (config.has("lookup.staff")) lookUpStories();
+
+        documentManager.close();
+
+        Metrics.summary();
+        if (config.has("metrics.output")) {
+            File file = new File(config.get("metrics.output", null));
+            Metrics.export(file);
+            Logger.log(SectionName.ASSESSOR, "Metrics written to " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Lists one staff member's stories from one month, through the store's index where it has one
+     */
+    private void lookUpStories() throws IOException {
+        int staffID = config.askNumber(SectionName.ASSESSOR, "lookup.staff", null, null);
+        int month = config.askNumber(SectionName.ASSESSOR, "lookup.month", "Enter month to list stories for (1-12)", null);
+        int year = config.askNumber(SectionName.ASSESSOR, "lookup.year", "Enter two-digit year to list stories for", null);
+
+        ArrayList<Story> stories = documentManager.getStories(staffID, month, year);
+        Logger.log(SectionName.ASSESSOR, stories.size() + " stories by Staff #" + staffID + " in " + month + "/" + year);
+        for (Story story : stories) {
+            Logger.log(SectionName.ASSESSOR, story.getTitle());
+        }
     }
 
     private void retrieveCookies() throws IOException {
+        if (!config.is("cookie.refresh", false) && savedCookiesWork()) {
+            Logger.log(SectionName.COOKIE, "Using saved cookies");
+        } else {
+            extractCookies();
+            if (transport != null) transport.setCookies(documentManager.getCookieList());
+        }
+
+        // From here on, being logged out mid-scrape gets fresh cookies rather than pages of the login form
+        renewable = canRefreshCookies();
+        if (transport != null && renewable) transport.setRefresher(this::refreshCookies);
+    }
+
+    /**
+     * Headless, cookies can only be read again from a browser named in the settings, as nothing can be asked for
+     */
+    private boolean canRefreshCookies() {
+        if (!config.isHeadless() || config.has("browser")) return true;
+        Logger.log(SectionName.COOKIE, LogLevel.WARN, "No browser setting to refresh cookies from, so being logged out will end the run");
+        return false;
+    }
+
+    /**
+     * Runs on whichever worker was logged out first, while the others wait on the transport
+     *
+     * @return The new cookies, or null if there is nowhere to get them from
+     */
+    private String refreshCookies() throws IOException {
+        Logger.log(SectionName.COOKIE, LogLevel.WARN, "Logged out of The Torch, reading cookies again");
+        try {
+            extractCookies();
+        } catch (IllegalStateException e) {
+            // Headless, with the browser set to Manual and no cookie settings to fall back on
+            Logger.log(SectionName.COOKIE, LogLevel.WARN, "Could not refresh cookies (" + e.getMessage() + ")");
+            return null;
+        }
+        return documentManager.getCookieList();
+    }
+
+    /**
+     * Whether the cookies from the last run are unexpired and still get us into the dashboard.
+     * One page fetch is far cheaper than opening and decrypting the browser's cookie stores.
+     */
+    private boolean savedCookiesWork() throws IOException {
+        ArrayList<Cookie> cookies = documentManager.getCookies();
+        if (cookies.isEmpty()) return false;
+
+        long now = System.currentTimeMillis();
+        for (Cookie cookie : cookies) {
+            if (cookie.isExpired(now)) {
+                Logger.log(SectionName.COOKIE, "Saved cookies have expired");
+                return false;
+            }
+        }
+
+        try {
+            getTransport().get(PROFILE_URL);
+            return true;
+        } catch (SessionExpiredException e) {
+            // No refresher is set yet, so being sent to the login page ends up here rather than in new cookies
+            Logger.log(SectionName.COOKIE, "Saved cookies were turned away");
+            return false;
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 403) {
+                Logger.log(SectionName.COOKIE, "Saved cookies were turned away");
+                return false;
+            }
+            throw e;
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void extractCookies() throws IOException {
         String cookieKey_sec = null, cookieValue_sec = null;
         String cookieKey_logged_in = null, cookieValue_logged_in = null;
+        long expires_sec = 0, expires_logged_in = 0;
 
         Logger.log(SectionName.COOKIE, "Make sure you have logged into The Torch within the past month on this computer");
-        Browser browser = Logger.askBrowser(SectionName.COOKIE, "What browser do you use?");
+        Browser browser = getBrowser();
         if (browser != null) {
-            Set<cmonster.cookies.Cookie> cookies = browser.getCookiesForDomain("shsthetorch.com");
+            long start = Metrics.start();
+            Set<cmonster.cookies.Cookie> cookies;
+            try {
+                cookies = browser.getCookiesForDomain("shsthetorch.com");
+            } catch (IOException e) {
+                Logger.log(SectionName.COOKIE, LogLevel.WARN, "Could not read cookies from " + browser + " (" + e.getMessage() + "). Entering manual mode.");
+                manualCookies();
+                return;
+            }
+            Metrics.record(Phase.COOKIE_EXTRACTION, start);
             for (cmonster.cookies.Cookie cookie : cookies) {
                 String name = cookie.getName();
                 if (name.contains("wordpress_sec_")) {
                     cookieKey_sec = name;
                     cookieValue_sec = cookie.getValue();
+                    expires_sec = millis(cookie.getExpires());
                 } else if (name.contains("wordpress_logged_in_")) {
                     cookieKey_logged_in = name;
                     cookieValue_logged_in = cookie.getValue();
+                    expires_logged_in = millis(cookie.getExpires());
                 }
             }
             if (
@@ -60,8 +237,8 @@ public class Assessor {
                             cookieValue_logged_in != null
             ) {
                 documentManager.clearCookies();
-                documentManager.addCookie(new Cookie(cookieKey_sec, cookieValue_sec));
-                documentManager.addCookie(new Cookie(cookieKey_logged_in, cookieValue_logged_in));
+                documentManager.addCookie(new Cookie(cookieKey_sec, cookieValue_sec, expires_sec));
+                documentManager.addCookie(new Cookie(cookieKey_logged_in, cookieValue_logged_in, expires_logged_in));
                 documentManager.saveCookies();
             } else {
                 Logger.log(SectionName.COOKIE, "Cookies not found in browser. Entering manual mode.");
@@ -72,11 +249,23 @@ public class Assessor {
         }
     }
 
+    private Browser getBrowser() {
+        if (!browserChosen) {
+            browser = config.askBrowser(SectionName.COOKIE, "browser", "What browser do you use?", null);
+            browserChosen = true;
+        }
+        return browser;
+    }
+
+    private static long millis(Date date) {
+        return date == null ? 0 : date.getTime();
+    }
+
     private void manualCookies() throws IOException {
-        String cookieKey_sec = Logger.askString(SectionName.COOKIE, "Enter SEC cookie key");
-        String cookieValue_sec = Logger.askString(SectionName.COOKIE, "Enter SEC cookie value");
-        String cookieKey_logged_in = Logger.askString(SectionName.COOKIE, "Enter LOGGED_IN cookie key");
-        String cookieValue_logged_in = Logger.askString(SectionName.COOKIE, "Enter LOGGED_IN cookie value");
+        String cookieKey_sec = config.askString(SectionName.COOKIE, "cookie.sec.key", "Enter SEC cookie key", null);
+        String cookieValue_sec = config.askString(SectionName.COOKIE, "cookie.sec.value", "Enter SEC cookie value", null);
+        String cookieKey_logged_in = config.askString(SectionName.COOKIE, "cookie.loggedIn.key", "Enter LOGGED_IN cookie key", null);
+        String cookieValue_logged_in = config.askString(SectionName.COOKIE, "cookie.loggedIn.value", "Enter LOGGED_IN cookie value", null);
 
         documentManager.clearCookies();
         documentManager.addCookie(new Cookie(cookieKey_sec, cookieValue_sec));
@@ -85,21 +274,111 @@ public class Assessor {
     }
 
     private void retrieveStaff() throws IOException, URISyntaxException {
-        StaffScraper staffScraper = new StaffScraper();
-        ArrayList<Staff> staffList = staffScraper.run(documentManager.getCookieList());
+        int startID = config.askNumber(SectionName.STAFF, "staff.start", "Enter starting staff ID (117)", null);
+        int endID = config.askNumber(SectionName.STAFF, "staff.end", "Enter ending staff ID (159)", null);
+
+        StaffScraper staffScraper = new StaffScraper(getTransport(), getWorkers(), getHostLimit());
+        ArrayList<Staff> staffList = staffScraper.run(startID, endID);
 
         documentManager.clearStaff();
         documentManager.addStaffList(staffList);
         documentManager.saveStaff();
     }
 
+    private Transport getTransport() throws IOException {
+        if (transport == null) {
+            ResponseCache cache = config.is("cache.pages", true) ? new ResponseCache() : null;
+            RateLimiter limiter = new RateLimiter(
+                    Double.parseDouble(config.get("rate.initial", String.valueOf(RateLimiter.DEFAULT_RATE))),
+                    Double.parseDouble(config.get("rate.max", String.valueOf(RateLimiter.DEFAULT_MAX_RATE))));
+            RetryPolicy retries = new RetryPolicy(
+                    Integer.parseInt(config.get("retries", String.valueOf(RetryPolicy.DEFAULT.getAttempts()))),
+                    Duration.ofMillis(500), Duration.ofSeconds(30));
+            transport = new Transport(documentManager.getCookieList(), cache, limiter, retries);
+            if (renewable) transport.setRefresher(this::refreshCookies);
+        }
+        return transport;
+    }
+
+    private int getWorkers() {
+        if (workers < 1) {
+            workers = Math.max(1, config.askNumber(SectionName.ASSESSOR, "workers", "Enter number of concurrent requests (1 for sequential)", 1));
+        }
+        return workers;
+    }
+
+    /**
+     * The workers.perHost setting, or every worker when it is not set. It can only lower the cap, and every
+     * request goes to The Torch, so in practice it limits concurrent requests the same way a lower worker count would.
+     */
+    private int getHostLimit() {
+        if (!config.has("workers.perHost")) return getWorkers();
+        return Math.max(1, config.askNumber(SectionName.ASSESSOR, "workers.perHost", null, null));
+    }
+
     private void retrieveStories() throws URISyntaxException, IOException {
-        StoryScraper storyScraper = new StoryScraper();
-        ArrayList<Story> storyList = storyScraper.run(documentManager.getStaffList(), documentManager.getCookieList());
+        StoryScraper storyScraper = new StoryScraper(getTransport(), getWorkers(), getHostLimit());
+        ArrayList<Staff> staffList = documentManager.getStaffList();
+        HashMap<Integer, Mark> marks = documentManager.getMarks();
 
-        documentManager.clearStories();
-        documentManager.addStoryList(storyList);
-        documentManager.saveStories();
+        ArrayList<Story> storyList;
+        if (!marks.isEmpty() && config.askYesOrNo(SectionName.ASSESSOR, "stories.incremental", "Only scrape stories newer than the last refresh?", true)) {
+            ArrayList<Story> newStories = storyScraper.run(staffList, marks);
+            // An author whose mark was never reached was scraped in full, so their cached stories are replaced, not added to
+            ArrayList<Story> kept = new ArrayList<>();
+            for (Story story : documentManager.getStoriesList()) {
+                if (!storyScraper.getMissedMarks().contains(story.getId())) kept.add(story);
+            }
+            storyList = mergeStories(staffList, newStories, kept);
+        } else {
+            // Authors that could not be scraped keep what was cached for them rather than losing it
+            ArrayList<Story> scraped = storyScraper.run(staffList);
+            ArrayList<Story> kept = new ArrayList<>();
+            for (Story story : documentManager.getStoriesList()) {
+                if (storyScraper.getFailed().contains(story.getId())) kept.add(story);
+            }
+            storyList = mergeStories(staffList, scraped, kept);
+        }
+
+        if (!storyScraper.getFailed().isEmpty()) {
+            Logger.log(SectionName.ASSESSOR, LogLevel.WARN, "Stories could not be refreshed for staff " + storyScraper.getFailed());
+        }
+
+        documentManager.replaceStories(storyList, newestStories(storyList));
+
+        // What was scraped before the session ended is saved, and the authors after it kept their cached stories
+        if (storyScraper.getExpired() != null) throw storyScraper.getExpired();
+    }
+
+    /**
+     * Puts each staff member's new stories ahead of their cached ones, keeping the listing's newest-first order
+     */
+    private ArrayList<Story> mergeStories(ArrayList<Staff> staffList, ArrayList<Story> newStories, ArrayList<Story> cachedStories) {
+        HashMap<Integer, ArrayList<Story>> newByStaff = groupByStaff(newStories);
+        HashMap<Integer, ArrayList<Story>> cachedByStaff = groupByStaff(cachedStories);
+
+        ArrayList<Story> storyList = new ArrayList<>();
+        for (Staff staff : staffList) {
+            storyList.addAll(newByStaff.getOrDefault(staff.getId(), new ArrayList<>()));
+            storyList.addAll(cachedByStaff.getOrDefault(staff.getId(), new ArrayList<>()));
+        }
+        return storyList;
+    }
+
+    private HashMap<Integer, ArrayList<Story>> groupByStaff(ArrayList<Story> storyList) {
+        HashMap<Integer, ArrayList<Story>> byStaff = new HashMap<>();
+        for (Story story : storyList) {
+            byStaff.computeIfAbsent(story.getId(), id -> new ArrayList<>()).add(story);
+        }
+        return byStaff;
+    }
+
+    private ArrayList<Mark> newestStories(ArrayList<Story> storyList) {
+        HashMap<Integer, Mark> marks = new HashMap<>();
+        for (Story story : storyList) {
+            marks.putIfAbsent(story.getId(), new Mark(story));
+        }
+        return new ArrayList<>(marks.values());
     }
 
-}
\ No newline at end of file
+}
@@ -1,88 +1,85 @@
 package sections;
 
-import memory.types.Date;
 import memory.types.Staff;
 import memory.types.Story;
+import reports.ReportFormat;
+import reports.ReportSink;
 import utilities.Logger;
-import utilities.SectionName;
+import utilities.Metrics;
+import utilities.Phase;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 public class Counter {
     private final ArrayList<Staff> staffList;
     private final ArrayList<Story> storyList;
-    private final HashMap<Integer, HashMap<String, Integer>> tally = new HashMap<>();
-    //                    StaffID          Date    Tally
+    private final int[] window;
+    private Tally tally;
+    private Report report;
 
+    /**
+     * Counts every story, reporting on whatever months the stories span
+     */
     public Counter(ArrayList<Staff> staffList, ArrayList<Story> storyList) {
+        this(staffList, storyList, null);
+    }
+
+    /**
+     * @param window The first and last month index to report on, or null to span the stories
+     */
+    public Counter(ArrayList<Staff> staffList, ArrayList<Story> storyList, int[] window) {
         this.staffList = staffList;
         this.storyList = storyList;
+        this.window = window;
     }
 
-    public void run() {
-        for (Staff staff : staffList) {
-            tally.put(staff.getId(), new HashMap<>());
-        }
-
-        for (Story story : storyList) {
-            HashMap<String, Integer> staffTally = tally.get(story.getId());
-            Date storyDate = story.getDate();
-            staffTally.merge(storyDate.toString(), 1, Integer::sum);
-        }
-
-        printResults();
+    public void run() throws IOException {
+        // Console output stays tab separated so it can be pasted straight into a sheet
+        Logger.flush();
+        run(ReportFormat.TSV.open(System.out));
     }
 
-    private void printResults() {
-        // Create Header Dates
-        int[] headersMonth = new int[]{8, 9, 10, 11, 12, 1, 2, 3, 4, 5};
-        int[] headersYear = new int[]{23, 23, 23, 23, 23, 24, 24, 24, 24, 24};
-        int length = headersMonth.length;
-        Date[] headers = new Date[length];
-        for (int i = 0; i < length; i++) {
-            headers[i] = new Date(headersMonth[i], headersYear[i]);
+    /**
+     * Tallies the stories and streams the report to the given sink
+     */
+    public void run(ReportSink sink) throws IOException {
+        long start = Metrics.start();
+        tally = Tally.of(staffList, storyList);
+        if (window == null) {
+            report = new Report(staffList, tally);
+        } else {
+            report = new Report(staffList, tally, window[0], window[1]);
         }
+        Metrics.record(Phase.TALLY, start);
 
-        // Constructs header row
-        StringBuilder headerBuilder = new StringBuilder();
-        headerBuilder.append("Name").append("\t");
-        for (Date date : headers) {
-            headerBuilder.append(date.toString()).append("\t");
-        }
-        headerBuilder.append("Total:").append("\t");
-        Logger.log(SectionName.SILENT, headerBuilder.toString());
-
-        HashMap<Date, Integer> monthTally = new HashMap<>();
-        for (Staff staff : staffList) {
-            StringBuilder rowBuilder = new StringBuilder();
-            HashMap<String, Integer> staffStoryList = tally.get(staff.getId());
+        write(sink);
+        sink.flush();
+    }
 
-            rowBuilder.append(staff.getName().getFull()).append("\t");
+    public Tally getTally() {
+        return tally;
+    }
 
-            int totalStaffStories = 0;
-            for (Date date : headers) {
-                Integer stories = staffStoryList.get(date.toString());
-                if (stories == null) stories = 0;
-                rowBuilder.append(stories).append("\t");
-                totalStaffStories += stories;
-                monthTally.merge(date, stories, Integer::sum);
-            }
+    public Report getReport() {
+        return report;
+    }
 
-            rowBuilder.append(totalStaffStories).append("\t");
-            Logger.log(SectionName.SILENT, rowBuilder.toString());
+    /**
+     * Streams every pivot of the report to a file, in the format its extension names
+     */
+    public void export(File file) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file);
+             ReportSink sink = ReportFormat.of(file).open(stream)) {
+            write(sink);
         }
+    }
 
-        StringBuilder monthRow = new StringBuilder();
-        int totalStories = 0;
-
-        monthRow.append("Total:").append("\t");
-        for (Date date : headers) {
-            int totalMonthStories = monthTally.get(date);
-            monthRow.append(totalMonthStories).append("\t");
-            totalStories += totalMonthStories;
+    private void write(ReportSink sink) throws IOException {
+        for (Pivot pivot : report.getPivots()) {
+            sink.write(pivot);
         }
-        monthRow.append(totalStories).append("\t");
-        Logger.log(SectionName.SILENT, monthRow.toString());
     }
 }
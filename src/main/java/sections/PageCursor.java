@@ -0,0 +1,69 @@
+package sections;
+
+import network.Response;
+import network.Transport;
+import utilities.Metrics;
+import utilities.Phase;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+/**
+ * Steps through an author's paginated edit.php listing one page at a time.
+ * Only the current page is held, so callers can parse it and let it go before asking for the next.
+ */
+public class PageCursor {
+    private final Transport transport;
+    private final String host;
+    private final int staffID;
+    private int pageNum = 1;
+    private boolean hasNext = true;
+    private boolean unchanged = false;
+
+    public PageCursor(Transport transport, String host, int staffID) {
+        this.transport = transport;
+        this.host = host;
+        this.staffID = staffID;
+    }
+
+    /**
+     * Fetches the next page of the listing
+     *
+     * @return The page body, or null once the listing is exhausted
+     */
+    public String next() throws IOException, URISyntaxException {
+        if (!hasNext) return null;
+
+        String url = listing(host, staffID) + pageNum;
+        long start = Metrics.start();
+        Response response = transport.get(url);
+        Metrics.record(Phase.STORY_FETCH, start);
+        String body = response.getBody();
+        unchanged = response.isUnchanged();
+
+        // WordPress redirects, or shows an empty listing, once we page past the end
+        if (pageNum > 1 && (response.isRedirected() || body.contains("No posts found."))) {
+            hasNext = false;
+            return null;
+        }
+
+//            <a class="next-page button" href=""><span class="screen-reader-text">Next page</span><span aria-hidden="true">›</span></a>
+        hasNext = body.contains("next-page button");
+        pageNum++;
+        return body;
+    }
+
+    /**
+     * The URL of an author's listing, short of the page number, so it prefixes the URL of every page
+     */
+    public static String listing(String host, int staffID) {
+        return "https://" + host + "/wp-admin/edit.php?post_type=post&author=" + staffID + "&paged=";
+    }
+
+    /**
+     * Whether the page last returned is identical to the cached copy from an earlier run
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+}
@@ -0,0 +1,66 @@
+package sections;
+
+/**
+ * One report layout: a count for each staff member under each column, with totals
+ */
+public class Pivot {
+    private final String title;
+    private final String[] names;
+    private final String[] columns;
+    private final int[][] cells;
+    private final int[] rowTotals;
+    private final int[] columnTotals;
+    private int total = 0;
+
+    public Pivot(String title, String[] names, String[] columns) {
+        this.title = title;
+        this.names = names;
+        this.columns = columns;
+        this.cells = new int[names.length][columns.length];
+        this.rowTotals = new int[names.length];
+        this.columnTotals = new int[columns.length];
+    }
+
+    void add(int row, int column, int count) {
+        cells[row][column] += count;
+        rowTotals[row] += count;
+        columnTotals[column] += count;
+        total += count;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int rows() {
+        return names.length;
+    }
+
+    public int columns() {
+        return columns.length;
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public String column(int column) {
+        return columns[column];
+    }
+
+    public int cell(int row, int column) {
+        return cells[row][column];
+    }
+
+    public int rowTotal(int row) {
+        return rowTotals[row];
+    }
+
+    public int columnTotal(int column) {
+        return columnTotals[column];
+    }
+
+    public int total() {
+        return total;
+    }
+}
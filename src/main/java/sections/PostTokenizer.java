@@ -0,0 +1,136 @@
+package sections;
+
+import utilities.Unescaper;
+
+/**
+ * Walks the post rows of an edit.php page in a single forward pass.
+ * <p>
+ * Each call to {@link #next()} moves onto the next post and exposes its fields in place.
+ * Nothing is copied out of the page except the title, and only when it is asked for.
+ */
+public class PostTokenizer {
+    private static final String POST_SEP = "<div class=\"post_title\">";
+    private static final String STATUS_SEP = "<div class=\"_status\">";
+    private static final String YEAR_SEP = "<div class=\"aa\">";
+    private static final String MONTH_SEP = "<div class=\"mm\">";
+    private static final String DRAFT = "draft";
+    // How far past a post's title its hidden inline fields are searched for
+    private static final int WINDOW = 500;
+
+    private final CharSequence body;
+    private final int length;
+    private final StringBuilder scratch = new StringBuilder();
+    private int cursor = 0;
+
+    private int titleStart;
+    private int titleEnd;
+    private int statusStart;
+    private int statusEnd;
+    private int year;
+    private int month;
+
+    public PostTokenizer(CharSequence body) {
+        this.body = body;
+        this.length = body.length();
+    }
+
+    /**
+     * Advances to the next post on the page
+     *
+     * @return false once no posts remain
+     */
+    public boolean next() {
+        while (true) {
+            int postSepPos = indexOf(POST_SEP, cursor, length);
+            if (postSepPos == -1) {
+                cursor = length;
+                return false;
+            }
+
+            titleStart = postSepPos + POST_SEP.length();
+            int windowEnd = Math.min(titleStart + WINDOW, length);
+            titleEnd = indexOf('<', titleStart, windowEnd);
+            cursor = Math.min(postSepPos + WINDOW, length);
+            if (titleEnd == -1) continue;
+
+            statusStart = fieldStart(STATUS_SEP, titleEnd, windowEnd);
+            statusEnd = statusStart == -1 ? -1 : indexOf('<', statusStart, windowEnd);
+            year = readNumber(fieldStart(YEAR_SEP, titleEnd, windowEnd), windowEnd);
+            month = readNumber(fieldStart(MONTH_SEP, titleEnd, windowEnd), windowEnd);
+
+            if (year != -1 && month != -1) return true;
+        }
+    }
+
+    public String title() {
+        return body.subSequence(titleStart, titleEnd).toString();
+    }
+
+    /**
+     * The title with its HTML entities decoded straight out of the page
+     */
+    public String unescapedTitle() {
+        scratch.setLength(0);
+        Unescaper.unescape(body, titleStart, titleEnd, scratch);
+        return scratch.toString();
+    }
+
+    public boolean isDraft() {
+        if (statusStart == -1 || statusEnd == -1 || statusEnd - statusStart != DRAFT.length()) return false;
+        for (int i = 0; i < DRAFT.length(); i++) {
+            if (body.charAt(statusStart + i) != DRAFT.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The two-digit year, as in 23 for 2023
+     */
+    public int year() {
+        return year % 100;
+    }
+
+    public int month() {
+        return month;
+    }
+
+    private int fieldStart(String sep, int from, int to) {
+        int pos = indexOf(sep, from, to);
+        return pos == -1 ? -1 : pos + sep.length();
+    }
+
+    private int readNumber(int from, int to) {
+        if (from == -1) return -1;
+        int value = 0;
+        int i = from;
+        while (i < to) {
+            char c = body.charAt(i);
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+            i++;
+        }
+        return i == from ? -1 : value;
+    }
+
+    private int indexOf(char target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (body.charAt(i) == target) return i;
+        }
+        return -1;
+    }
+
+    private int indexOf(String target, int from, int to) {
+        // Only [from, to) is searched, so a field missing from one post never scans the rest of the page
+        int last = to - target.length();
+        char first = target.charAt(0);
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (body.charAt(i) != first) continue;
+            for (int j = 1; j < target.length(); j++) {
+                if (body.charAt(i + j) != target.charAt(j)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,127 @@
+package sections;
+
+import memory.types.Staff;
+
+import java.util.ArrayList;
+
+/**
+ * Lays a tally out over a window of months as monthly, quarterly and school year pivots.
+ * <p>
+ * School years run August through July, and are split into quarters starting in August,
+ * November, February and May. All three pivots are filled in a single pass over the tally.
+ */
+public class Report {
+    private static final int SCHOOL_YEAR_START = 8;
+
+    private final int firstMonth;
+    private final int lastMonth;
+    private final Pivot monthly;
+    private final Pivot quarterly;
+    private final Pivot yearly;
+
+    /**
+     * A report spanning every month the tally has stories for
+     */
+    public Report(ArrayList<Staff> staffList, Tally tally) {
+        this(staffList, tally, tally.getFirstMonth(), tally.getLastMonth());
+    }
+
+    /**
+     * @param firstMonth The first month index reported, as given by Tally.monthIndex
+     * @param lastMonth  The last month index reported
+     */
+    public Report(ArrayList<Staff> staffList, Tally tally, int firstMonth, int lastMonth) {
+        this.firstMonth = firstMonth;
+        this.lastMonth = Math.max(firstMonth - 1, lastMonth);
+        int months = this.lastMonth - firstMonth + 1;
+
+        String[] names = new String[staffList.size()];
+        for (int row = 0; row < names.length; row++) {
+            names[row] = staffList.get(row).getName().getFull();
+        }
+
+        // Map each month of the window onto its quarter and school year columns up front
+        int firstQuarter = quarterIndex(firstMonth);
+        int firstYear = schoolYear(firstMonth);
+        int[] quarterColumns = new int[months];
+        int[] yearColumns = new int[months];
+        String[] monthLabels = new String[months];
+        for (int i = 0; i < months; i++) {
+            int month = firstMonth + i;
+            monthLabels[i] = Tally.monthOf(month) + "/" + Tally.yearOf(month);
+            quarterColumns[i] = quarterIndex(month) - firstQuarter;
+            yearColumns[i] = schoolYear(month) - firstYear;
+        }
+
+        int quarters = months == 0 ? 0 : quarterColumns[months - 1] + 1;
+        String[] quarterLabels = new String[quarters];
+        for (int i = 0; i < quarters; i++) {
+            int quarter = firstQuarter + i;
+            quarterLabels[i] = "Q" + (Math.floorMod(quarter, 4) + 1) + " " + schoolYearLabel(Math.floorDiv(quarter, 4));
+        }
+
+        int years = months == 0 ? 0 : yearColumns[months - 1] + 1;
+        String[] yearLabels = new String[years];
+        for (int i = 0; i < years; i++) {
+            yearLabels[i] = schoolYearLabel(firstYear + i);
+        }
+
+        monthly = new Pivot("Monthly", names, monthLabels);
+        quarterly = new Pivot("Quarterly", names, quarterLabels);
+        yearly = new Pivot("School Year", names, yearLabels);
+
+        for (int row = 0; row < names.length; row++) {
+            for (int i = 0; i < months; i++) {
+                int count = tally.count(row, firstMonth + i);
+                if (count == 0) continue;
+                monthly.add(row, i, count);
+                quarterly.add(row, quarterColumns[i], count);
+                yearly.add(row, yearColumns[i], count);
+            }
+        }
+    }
+
+    /**
+     * A window covering the school year that starts in August of the given two-digit year
+     */
+    public static int[] schoolYearWindow(int year) {
+        int first = Tally.monthIndex(SCHOOL_YEAR_START, year);
+        return new int[]{first, first + 11};
+    }
+
+    public Pivot getMonthly() {
+        return monthly;
+    }
+
+    public Pivot getQuarterly() {
+        return quarterly;
+    }
+
+    public Pivot getYearly() {
+        return yearly;
+    }
+
+    public Pivot[] getPivots() {
+        return new Pivot[]{monthly, quarterly, yearly};
+    }
+
+    public int getFirstMonth() {
+        return firstMonth;
+    }
+
+    public int getLastMonth() {
+        return lastMonth;
+    }
+
+    private static int schoolYear(int monthIndex) {
+        return Math.floorDiv(monthIndex - (SCHOOL_YEAR_START - 1), 12);
+    }
+
+    private static int quarterIndex(int monthIndex) {
+        return Math.floorDiv(monthIndex - (SCHOOL_YEAR_START - 1), 3);
+    }
+
+    private static String schoolYearLabel(int year) {
+        return year + "-" + (year + 1);
+    }
+}
@@ -1,64 +1,107 @@
 package sections;
 
 import memory.types.Staff;
+import network.SessionExpiredException;
+import network.Transport;
+import network.WorkerPool;
+import utilities.LogLevel;
 import utilities.Logger;
+import utilities.Metrics;
+import utilities.Phase;
 import utilities.SectionName;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.*;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.concurrent.Future;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class StaffScraper {
-    private final ArrayList<Staff> staffList = new ArrayList<>();
-    private String cookies;
+    private static final String HOST = "shsthetorch.com";
 
-    public ArrayList<Staff> run(String cookies) throws IOException, URISyntaxException {
-        int startID = Logger.askNumber(SectionName.STAFF, "Enter starting staff ID (117)");
-        int endID = Logger.askNumber(SectionName.STAFF, "Enter ending staff ID (159)");
+    private final ArrayList<Staff> staffList = new ArrayList<>();
+    private final Transport transport;
+    private final int workers;
+    private final int hostLimit;
 
-        this.cookies = cookies;
+    /**
+     * @param hostLimit How many of the workers may be waiting on The Torch at once
+     */
+    public StaffScraper(Transport transport, int workers, int hostLimit) {
+        this.transport = transport;
+        this.workers = Math.max(1, workers);
+        this.hostLimit = hostLimit;
+    }
 
-        for (int staffID = startID; staffID <= endID; staffID++) {
-            Staff staff = scrape(staffID);
-            if (!(staff == null)) staffList.add(staff);
+    public ArrayList<Staff> run(int startID, int endID) throws IOException, URISyntaxException {
+        if (workers > 1) {
+            sweep(startID, endID);
+        } else {
+            for (int staffID = startID; staffID <= endID; staffID++) {
+                Staff staff = scrapeOrSkip(staffID);
+                if (!(staff == null)) staffList.add(staff);
+            }
         }
 
         return staffList;
     }
 
+    private void sweep(int startID, int endID) throws IOException, URISyntaxException {
+        try (WorkerPool pool = new WorkerPool(workers, hostLimit)) {
+            // Futures are kept in ID order, so results come out ordered no matter which finishes first
+            ArrayList<Future<Staff>> futures = new ArrayList<>();
+            for (int staffID = startID; staffID <= endID; staffID++) {
+                int id = staffID;
+                futures.add(pool.submit(HOST, () -> scrapeOrSkip(id)));
+            }
+
+            for (Future<Staff> future : futures) {
+                Staff staff = WorkerPool.await(future);
+                if (!(staff == null)) staffList.add(staff);
+            }
+        }
+    }
+
+    /**
+     * A staff ID that still fails after the transport's retries is skipped, not fatal to the sweep.
+     * Being logged out for good is, as every ID after it would fail too.
+     */
+    private Staff scrapeOrSkip(int staffID) throws IOException, URISyntaxException {
+        try {
+            return scrape(staffID);
+        } catch (SessionExpiredException e) {
+            throw e;
+        } catch (IOException e) {
+            Metrics.count(SectionName.STAFF, "ids_failed");
+            Logger.log(SectionName.STAFF, LogLevel.WARN, "Scraping Staff #" + staffID + ": Failed (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
     private Staff scrape(int staffID) throws IOException, URISyntaxException {
-        Logger.log(SectionName.STAFF, "Scraping Staff #" + staffID, false);
-        String baseURL = "https://shsthetorch.com/wp-admin/edit.php";
+        String baseURL = "https://" + HOST + "/wp-admin/edit.php";
         String query = "author=" + URLEncoder.encode(String.valueOf(staffID), UTF_8);
-        URL url = new URI(baseURL + "?" + query).toURL();
 
         String staffName;
 
-        Scanner scanner = getScanner(url);
-        String responseBody = scanner.useDelimiter("\\A").next();
+        long start = Metrics.start();
+        String responseBody = transport.get(baseURL + "?" + query).getBody();
+        Metrics.record(Phase.STAFF_FETCH, start);
 
         String tell = "No posts found.";
         if (!responseBody.contains(tell)) {
             String sep = "author=" + staffID + "\">";
             int sepPos = responseBody.indexOf(sep);
+            // Anything but a listing, such as a login page, has no author link to take a name from
+            if (sepPos == -1) throw new IOException("No author link on the page for Staff #" + staffID);
             staffName = responseBody.substring(sepPos + sep.length()).split("<", 2)[0];
-            Logger.log(SectionName.SILENT, ": " + staffName);
+            Logger.log(SectionName.STAFF, "Scraping Staff #" + staffID + ": " + staffName);
             return new Staff(staffID, staffName);
         } else {
-            Logger.log(SectionName.SILENT, ": No one found");
+            Logger.log(SectionName.STAFF, "Scraping Staff #" + staffID + ": No one found");
             return null;
         }
     }
-
-    private Scanner getScanner(URL url) throws IOException {
-        URLConnection connection = url.openConnection();
-        connection.setRequestProperty("Accept-Charset", UTF_8.name());
-        connection.setRequestProperty("Cookie", cookies);
-        InputStream response = connection.getInputStream();
-        return new Scanner(response);
-    }
 }
\ No newline at end of file
@@ -1,134 +1,165 @@
 package sections;
 
 import memory.types.Date;
+import memory.types.Mark;
 import memory.types.Staff;
 import memory.types.Story;
+import network.ResponseCache;
+import network.RetryPolicy;
+import network.SessionExpiredException;
+import network.Transport;
+import network.WorkerPool;
+import utilities.LogLevel;
 import utilities.Logger;
+import utilities.Metrics;
+import utilities.Phase;
 import utilities.SectionName;
-import utilities.Unescaper;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLConnection;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Objects;
-import java.util.Scanner;
-
-import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 public class StoryScraper {
-    private String cookies;
-    private int pageNum = 2;
-
-    public StoryScraper() {
+    private static final String HOST = "shsthetorch.com";
+    // An author is started over from page one at most once, after the transport has already retried the page
+    private static final RetryPolicy AUTHOR_RETRIES = new RetryPolicy(2, Duration.ofSeconds(5), Duration.ofSeconds(30));
+
+    private final Transport transport;
+    private final int workers;
+    private final int hostLimit;
+    private final Set<Integer> failed = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> missedMarks = ConcurrentHashMap.newKeySet();
+    private volatile SessionExpiredException expired;
+
+    public StoryScraper(Transport transport, int workers, int hostLimit) {
+        this.transport = transport;
+        this.workers = Math.max(1, workers);
+        this.hostLimit = hostLimit;
     }
 
-    public ArrayList<Story> run(ArrayList<Staff> staffList, String cookies) throws URISyntaxException, IOException {
-        this.cookies = cookies;
+    public ArrayList<Story> run(ArrayList<Staff> staffList) throws URISyntaxException, IOException {
+        return run(staffList, new HashMap<>());
+    }
 
+    /**
+     * Scrapes only the stories newer than each author's mark, stopping pagination once a known post is reached
+     *
+     * @param marks The newest known story of each staff ID
+     * @return Stories posted since the marks, in listing order
+     */
+    public ArrayList<Story> run(ArrayList<Staff> staffList, HashMap<Integer, Mark> marks) throws URISyntaxException, IOException {
         ArrayList<Story> storyList = new ArrayList<>();
 
-        for (Staff staff : staffList) {
-            int staffID = staff.getId();
-            pageNum = 2;
-            storyList.addAll(scrape(staffID));
+        if (workers > 1) {
+            // Each author is its own task: pages are fetched and parsed on the worker, one page at a time
+            try (WorkerPool pool = new WorkerPool(workers, hostLimit)) {
+                ArrayList<Future<ArrayList<Story>>> authors = new ArrayList<>();
+                for (Staff staff : staffList) {
+                    int staffID = staff.getId();
+                    Mark mark = marks.get(staffID);
+                    authors.add(pool.submit(HOST, () -> scrapeOrSkip(staffID, mark)));
+                }
+
+                for (Future<ArrayList<Story>> author : authors) {
+                    storyList.addAll(WorkerPool.await(author));
+                }
+            }
+        } else {
+            for (Staff staff : staffList) {
+                storyList.addAll(scrapeOrSkip(staff.getId(), marks.get(staff.getId())));
+            }
         }
 
         return storyList;
     }
 
-    private ArrayList<Story> scrape(int staffID) throws URISyntaxException, IOException {
-        ArrayList<Story> staffStoryList = new ArrayList<>();
-        int numberOfStories = 0;
+    /**
+     * Staff IDs whose stories could not be scraped, even after retrying
+     */
+    public Set<Integer> getFailed() {
+        return failed;
+    }
 
-        Logger.log(SectionName.STORY, "Scraping Stories #" + staffID, false);
-        String url = "https://shsthetorch.com/wp-admin/edit.php?post_type=post&author=" + staffID + "&paged=1";
-//
-        URLConnection connection = new URI(url).toURL().openConnection();
-        connection.setRequestProperty("Accept-Charset", UTF_8.name());
-        connection.setRequestProperty("Cookie", cookies);
+    /**
+     * Why the sweep was cut short, or null if it ran to the end. The authors it never reached are in {@link #getFailed()}.
+     */
+    public SessionExpiredException getExpired() {
+        return expired;
+    }
 
-        InputStream response = connection.getInputStream();
-        Scanner scanner = new Scanner(response);
-        String responseBody = scanner.useDelimiter("\\A").next();
+    /**
+     * Staff IDs whose mark was never reached, most likely because its post was deleted or retitled.
+     * Their whole listing was scraped, so what was found for them replaces their cached stories.
+     */
+    public Set<Integer> getMissedMarks() {
+        return missedMarks;
+    }
 
-//            <a class="next-page button" href=""><span class="screen-reader-text">Next page</span><span aria-hidden="true">›</span></a>
+    /**
+     * Scrapes one author, retrying on its own, so one author that keeps failing does not end the whole sweep
+     */
+    private ArrayList<Story> scrapeOrSkip(int staffID, Mark mark) throws IOException, URISyntaxException {
+        // Once logged out for good, every author left would fail the same way
+        if (expired != null) return skip(staffID);
+        try {
+            return AUTHOR_RETRIES.run("Stories of #" + staffID, () -> scrape(staffID, mark));
+        } catch (SessionExpiredException e) {
+            // The sweep finishes without requests so the authors already scraped can be saved before the run ends
+            expired = e;
+            Logger.log(SectionName.STORY, LogLevel.WARN, "Scraping Stories #" + staffID + ": Failed (" + e.getMessage() + ")");
+            return skip(staffID);
+        } catch (IOException e) {
+            Logger.log(SectionName.STORY, LogLevel.WARN, "Scraping Stories #" + staffID + ": Failed (" + e.getMessage() + ")");
+            return skip(staffID);
+        }
+    }
 
+    private ArrayList<Story> skip(int staffID) throws IOException {
+        // The author keeps their old stories, so the pages fetched for them must not count as seen next run
+        ResponseCache cache = transport.getCache();
+        if (cache != null) cache.discard(PageCursor.listing(HOST, staffID));
+        failed.add(staffID);
+        Metrics.count(SectionName.STORY, "authors_failed");
+        return new ArrayList<>();
+    }
 
-        responseBody = getFullBody(responseBody, staffID);
+    private ArrayList<Story> scrape(int staffID, Mark mark) throws URISyntaxException, IOException {
+        ArrayList<Story> staffStoryList = new ArrayList<>();
 
-        while (responseBody.contains("post_title")) {
-            String postSep = "<div class=\"post_title\">";
-            int postSepPos = responseBody.indexOf(postSep);
-            if (postSepPos == -1) {
+        PageCursor pages = new PageCursor(transport, HOST, staffID);
+        boolean reachedMark = false;
+        String page;
+        while (!reachedMark && (page = pages.next()) != null) {
+            // An unchanged page was parsed into the cached stories on an earlier run, as was everything after it
+            if (mark != null && pages.isUnchanged()) {
+                reachedMark = true;
                 break;
             }
-            int postLength = postSepPos + postSep.length();
-            String[] split = responseBody.substring(postLength, postLength + 500).split("<", 2);
-            String title = Unescaper.unescape(split[0]);
-
-            String draftSep = "<div class=\"_status\">";
-            int draftSepPos = split[1].indexOf(draftSep);
-            int draftLength = draftSepPos + draftSep.length();
-            String draft = split[1].substring(draftLength).split("<", 2)[0];
-
-            //
-            String yearSep = "<div class=\"aa\">";
-            int yearSepPos = split[1].indexOf(yearSep);
-            int yearLength = yearSepPos + yearSep.length();
-            int year = Integer.parseInt(split[1].substring(yearLength).split("<", 2)[0].substring(2, 4));
-
-            String monthSep = "<div class=\"mm\">";
-            int monthSepPos = split[1].indexOf(monthSep);
-            int monthLength = monthSepPos + monthSep.length();
-            int month = Integer.parseInt(split[1].substring(monthLength).split("<", 2)[0]);
-
-            responseBody = responseBody.substring(postSepPos + 500);
-
-            if (!Objects.equals(draft, "draft")) {
-                numberOfStories++;
-                staffStoryList.add(new Story(staffID, title, new Date(month, year)));
-            }
+            long start = Metrics.start();
+            reachedMark = parse(staffID, page, mark, staffStoryList);
+            Metrics.record(Phase.PARSE, start);
         }
+        if (mark != null && !reachedMark) missedMarks.add(staffID);
 
-        Logger.log(SectionName.SILENT, ": " + numberOfStories + " Stories found");
+        Logger.log(SectionName.STORY, "Scraping Stories #" + staffID + ": " + staffStoryList.size() + " Stories found");
         return staffStoryList;
     }
 
-    private String getFullBody(String responseBody, int staffID) throws IOException, URISyntaxException {
-        String tell = "next-page button";
-        if (responseBody.contains(tell)) {
-            responseBody = responseBody.replaceAll(tell, " ");
-
-            String url = "https://shsthetorch.com/wp-admin/edit.php?post_type=post&author=" + staffID + "&paged=" + pageNum;
-            URLConnection connection = new URI(url).toURL().openConnection();
-            connection.setRequestProperty("Accept-Charset", UTF_8.name());
-            connection.setRequestProperty("Cookie", cookies);
-
-            connection.connect();
-
-            String preconnection = String.valueOf(connection.getURL());
-            InputStream next = connection.getInputStream();
-
-            String postconnection = String.valueOf(connection.getURL());
-
-            if (!Objects.equals(preconnection, postconnection)) {
-                return responseBody;
-            } else {
-                Scanner nextScanner = new Scanner(next);
-                String nextBody = nextScanner.useDelimiter("\\A").next();
-
-                if (nextBody.contains("No posts found.")) {
-                    return responseBody;
-                } else {
-                    responseBody += nextBody;
-                    pageNum++;
-                    return getFullBody(responseBody, staffID);
-                }
+    private boolean parse(int staffID, String page, Mark mark, ArrayList<Story> staffStoryList) {
+        PostTokenizer posts = new PostTokenizer(page);
+        while (posts.next()) {
+            if (!posts.isDraft()) {
+                String title = posts.unescapedTitle();
+                // Listings are newest first, so everything from the mark onward is already known
+                if (mark != null && mark.matches(title, posts.month(), posts.year())) return true;
+                staffStoryList.add(new Story(staffID, title, new Date(posts.month(), posts.year())));
             }
         }
-        return responseBody;
+        return false;
     }
 }
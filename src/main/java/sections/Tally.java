@@ -0,0 +1,235 @@
+package sections;
+
+import memory.types.Date;
+import memory.types.Staff;
+import memory.types.Story;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Story counts per staff member per month, kept in a dense int matrix.
+ * <p>
+ * Rows follow the order of the staff list and columns are consecutive months, addressed by a
+ * month index of year * 12 + (month - 1). Row and column totals are kept as stories are added,
+ * so nothing is allocated per story.
+ */
+public class Tally {
+    // Below this many stories the fork-join overhead outweighs the parallel speedup (see TallyBenchmark)
+    public static final int PARALLEL_THRESHOLD = 200_000;
+    // Each partition fills its own matrix, so keep partitions few enough that merging stays cheap
+    private static final int PARTITIONS_PER_THREAD = 4;
+    private static final int MIN_PARTITION_SIZE = 16_384;
+
+    private final int firstStaffID;
+    private final int[] rowsByStaffID;
+    private final int firstMonth;
+    private final int months;
+    private final int[][] counts;
+    private final int[] rowTotals;
+    private final int[] columnTotals;
+    private int total = 0;
+
+    public Tally(ArrayList<Staff> staffList, int firstMonth, int lastMonth) {
+        int minStaffID = Integer.MAX_VALUE;
+        int maxStaffID = Integer.MIN_VALUE;
+        for (Staff staff : staffList) {
+            minStaffID = Math.min(minStaffID, staff.getId());
+            maxStaffID = Math.max(maxStaffID, staff.getId());
+        }
+
+        this.firstStaffID = staffList.isEmpty() ? 0 : minStaffID;
+        this.rowsByStaffID = new int[staffList.isEmpty() ? 0 : maxStaffID - minStaffID + 1];
+        Arrays.fill(rowsByStaffID, -1);
+        for (int row = 0; row < staffList.size(); row++) {
+            int slot = staffList.get(row).getId() - firstStaffID;
+            if (rowsByStaffID[slot] == -1) rowsByStaffID[slot] = row;
+        }
+
+        this.firstMonth = firstMonth;
+        this.months = Math.max(0, lastMonth - firstMonth + 1);
+        this.counts = new int[staffList.size()][months];
+        this.rowTotals = new int[staffList.size()];
+        this.columnTotals = new int[months];
+    }
+
+    /**
+     * An empty tally with the same rows and months as another
+     */
+    private Tally(Tally shape) {
+        this.firstStaffID = shape.firstStaffID;
+        this.rowsByStaffID = shape.rowsByStaffID;
+        this.firstMonth = shape.firstMonth;
+        this.months = shape.months;
+        this.counts = new int[shape.counts.length][months];
+        this.rowTotals = new int[shape.counts.length];
+        this.columnTotals = new int[months];
+    }
+
+    /**
+     * Builds a tally spanning exactly the months the stories cover, in parallel for large story lists
+     */
+    public static Tally of(ArrayList<Staff> staffList, ArrayList<Story> storyList) {
+        boolean parallel = storyList.size() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+        return of(staffList, storyList, parallel);
+    }
+
+    public static Tally of(ArrayList<Staff> staffList, ArrayList<Story> storyList, boolean parallel) {
+        int firstMonth = Integer.MAX_VALUE;
+        int lastMonth = Integer.MIN_VALUE;
+        for (Story story : storyList) {
+            int month = monthIndex(story.getDate());
+            firstMonth = Math.min(firstMonth, month);
+            lastMonth = Math.max(lastMonth, month);
+        }
+        if (storyList.isEmpty()) {
+            firstMonth = 0;
+            lastMonth = -1;
+        }
+
+        Tally tally = new Tally(staffList, firstMonth, lastMonth);
+        if (parallel) {
+            int partitions = ForkJoinPool.getCommonPoolParallelism() * PARTITIONS_PER_THREAD;
+            int partitionSize = Math.max(MIN_PARTITION_SIZE, storyList.size() / partitions + 1);
+            tally.merge(ForkJoinPool.commonPool().invoke(new Partition(tally, storyList, 0, storyList.size(), partitionSize)));
+        } else {
+            for (Story story : storyList) {
+                tally.add(story);
+            }
+        }
+        return tally;
+    }
+
+    public static int monthIndex(int month, int year) {
+        return year * 12 + (month - 1);
+    }
+
+    public static int monthIndex(Date date) {
+        return monthIndex(date.getMonth(), date.getYear());
+    }
+
+    public static int monthOf(int monthIndex) {
+        return Math.floorMod(monthIndex, 12) + 1;
+    }
+
+    public static int yearOf(int monthIndex) {
+        return Math.floorDiv(monthIndex, 12);
+    }
+
+    public void add(Story story) {
+        add(story.getId(), monthIndex(story.getDate()));
+    }
+
+    /**
+     * Counts one story. Stories by staff outside the list, or outside the months, are ignored.
+     */
+    public void add(int staffID, int monthIndex) {
+        int row = row(staffID);
+        int column = monthIndex - firstMonth;
+        if (row == -1 || column < 0 || column >= months) return;
+
+        counts[row][column]++;
+        rowTotals[row]++;
+        columnTotals[column]++;
+        total++;
+    }
+
+    /**
+     * Adds another tally of the same shape into this one
+     */
+    private void merge(Tally other) {
+        for (int row = 0; row < counts.length; row++) {
+            int[] counted = counts[row];
+            int[] adding = other.counts[row];
+            for (int column = 0; column < months; column++) {
+                counted[column] += adding[column];
+            }
+            rowTotals[row] += other.rowTotals[row];
+        }
+        for (int column = 0; column < months; column++) {
+            columnTotals[column] += other.columnTotals[column];
+        }
+        total += other.total;
+    }
+
+    /**
+     * @return The row of a staff member, or -1 if they are not in the tally
+     */
+    public int row(int staffID) {
+        int slot = staffID - firstStaffID;
+        if (slot < 0 || slot >= rowsByStaffID.length) return -1;
+        return rowsByStaffID[slot];
+    }
+
+    public int count(int row, int monthIndex) {
+        int column = monthIndex - firstMonth;
+        if (column < 0 || column >= months) return 0;
+        return counts[row][column];
+    }
+
+    public int rowTotal(int row) {
+        return rowTotals[row];
+    }
+
+    public int columnTotal(int monthIndex) {
+        int column = monthIndex - firstMonth;
+        if (column < 0 || column >= months) return 0;
+        return columnTotals[column];
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public int rows() {
+        return counts.length;
+    }
+
+    public int getFirstMonth() {
+        return firstMonth;
+    }
+
+    public int getLastMonth() {
+        return firstMonth + months - 1;
+    }
+
+    /**
+     * Tallies a slice of the story list into its own matrix, splitting large slices in half
+     */
+    private static class Partition extends RecursiveTask<Tally> {
+        private final Tally shape;
+        private final List<Story> storyList;
+        private final int from;
+        private final int to;
+        private final int partitionSize;
+
+        Partition(Tally shape, List<Story> storyList, int from, int to, int partitionSize) {
+            this.shape = shape;
+            this.storyList = storyList;
+            this.from = from;
+            this.to = to;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= partitionSize) {
+                Tally tally = new Tally(shape);
+                for (int i = from; i < to; i++) {
+                    tally.add(storyList.get(i));
+                }
+                return tally;
+            }
+
+            int middle = (from + to) >>> 1;
+            Partition left = new Partition(shape, storyList, from, middle, partitionSize);
+            left.fork();
+            Tally tally = new Partition(shape, storyList, middle, to, partitionSize).compute();
+            tally.merge(left.join());
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package utilities;
+
+import cmonster.browsers.Browser;
+import cmonster.browsers.ChromeBrowser;
+import cmonster.browsers.FirefoxBrowser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Settings given on the command line or in a properties/JSON file.
+ * <p>
+ * Every question the program asks has a setting key. A question whose key is set is answered
+ * from the settings without prompting. In headless mode nothing is ever read from stdin:
+ * unanswered questions fall back to their default, or fail if there is none.
+ * <p>
+ * Usage: {@code [--headless] [--config <file.properties|file.json>] [--key=value ...]}
+ */
+public class Config {
+    private final Properties settings = new Properties();
+    private boolean headless = false;
+
+    public static Config parse(String[] args) throws IOException {
+        Config config = new Config();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--headless")) {
+                config.headless = true;
+            } else if (arg.equals("--config") && i + 1 < args.length) {
+                config.load(new File(args[++i]));
+            } else if (arg.startsWith("--config=")) {
+                config.load(new File(arg.substring("--config=".length())));
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                config.settings.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+
+        if (Boolean.parseBoolean(config.settings.getProperty("headless"))) config.headless = true;
+        return config;
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public boolean has(String key) {
+        return settings.getProperty(key) != null;
+    }
+
+    public String get(String key, String fallback) {
+        return settings.getProperty(key, fallback);
+    }
+
+    public boolean is(String key, boolean fallback) {
+        String value = settings.getProperty(key);
+        return value == null ? fallback : parseYesOrNo(key, value);
+    }
+
+    public Boolean askYesOrNo(SectionName section, String key, String question, Boolean fallback) {
+        String value = settings.getProperty(key);
+        if (value != null) return parseYesOrNo(key, value);
+        if (!headless) return Logger.askYesOrNo(section, question);
+        return require(key, fallback);
+    }
+
+    public int askNumber(SectionName section, String key, String question, Integer fallback) {
+        String value = settings.getProperty(key);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Setting " + key + " must be a number, not " + value);
+            }
+        }
+        if (!headless) return Logger.askNumber(section, question);
+        return require(key, fallback);
+    }
+
+    public String askString(SectionName section, String key, String question, String fallback) {
+        String value = settings.getProperty(key);
+        if (value != null) return value;
+        if (!headless) return Logger.askString(section, question);
+        return require(key, fallback);
+    }
+
+    public Browser askBrowser(SectionName section, String key, String question, String fallback) {
+        String value = settings.getProperty(key);
+        if (value == null && !headless) return Logger.askBrowser(section, question);
+        if (value == null) value = require(key, fallback);
+        return switch (value) {
+            case "Chrome" -> new ChromeBrowser();
+            case "Firefox" -> new FirefoxBrowser();
+            case "Manual" -> null;
+            default -> throw new IllegalArgumentException("Setting " + key + " must be Chrome, Firefox or Manual, not " + value);
+        };
+    }
+
+    private <T> T require(String key, T fallback) {
+        if (fallback == null) {
+            throw new IllegalStateException("Running headless, but no value was given for " + key);
+        }
+        return fallback;
+    }
+
+    private static Boolean parseYesOrNo(String key, String value) {
+        return switch (value.trim().toLowerCase()) {
+            case "y", "yes", "true" -> true;
+            case "n", "no", "false" -> false;
+            default -> throw new IllegalArgumentException("Setting " + key + " must be yes or no, not " + value);
+        };
+    }
+
+    private void load(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(".json")) {
+            flatten("", new ObjectMapper().readTree(file));
+        } else {
+            try (Reader reader = new FileReader(file, UTF_8)) {
+                settings.load(reader);
+            }
+        }
+    }
+
+    /**
+     * Turns nested JSON objects into dotted keys, so {"staff": {"start": 117}} becomes staff.start=117
+     */
+    private void flatten(String prefix, JsonNode node) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                flatten(prefix.isEmpty() ? field.getKey() : prefix + "." + field.getKey(), field.getValue());
+            }
+        } else if (node.isValueNode() && !node.isNull()) {
+            settings.setProperty(prefix, node.asText());
+        }
+    }
+}
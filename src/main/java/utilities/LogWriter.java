@@ -0,0 +1,102 @@
+package utilities;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer behind Logger.
+ * <p>
+ * Lines go into a bounded multi-producer ring (each slot carries a sequence number, so claiming a slot
+ * is a single CAS and nobody takes a lock). One daemon thread drains the ring and prints everything it
+ * finds as one batch. Callers only ever wait if the terminal falls a whole ring behind.
+ */
+class LogWriter implements Runnable {
+    private static final int CAPACITY = 1 << 16;
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final long IDLE_NANOS = 1_000_000;
+
+    private final PrintStream out;
+    private final String[] lines = new String[CAPACITY];
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private final Thread thread;
+    private long head = 0;
+    private volatile long written = 0;
+
+    LogWriter(PrintStream out) {
+        this.out = out;
+        for (int i = 0; i < CAPACITY; i++) sequences.set(i, i);
+
+        thread = new Thread(this, "logger");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "logger-shutdown"));
+    }
+
+    void offer(String line) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & (CAPACITY - 1));
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    lines[slot] = line;
+                    sequences.set(slot, position + 1);
+                    return;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(IDLE_NANOS / 10);
+                position = tail.get();
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Waits until every line offered before this call has been printed, for prompts and for anything
+     * else about to write to the same stream.
+     */
+    void flush() {
+        long target = tail.get();
+        while (written < target) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(IDLE_NANOS / 10);
+        }
+    }
+
+    private String poll() {
+        int slot = (int) (head & (CAPACITY - 1));
+        if (sequences.get(slot) != head + 1) return null;
+
+        String line = lines[slot];
+        lines[slot] = null;
+        sequences.set(slot, head + CAPACITY);
+        head++;
+        return line;
+    }
+
+    @Override
+    public void run() {
+        StringBuilder batch = new StringBuilder(BATCH_SIZE);
+        while (true) {
+            String line;
+            while (batch.length() < BATCH_SIZE && (line = poll()) != null) {
+                batch.append(line);
+            }
+
+            if (batch.length() > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                written = head;
+            } else {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+    }
+}
@@ -4,23 +4,53 @@ import cmonster.browsers.Browser;
 import cmonster.browsers.ChromeBrowser;
 import cmonster.browsers.FirefoxBrowser;
 
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class Logger {
     private static final Scanner scanner = new Scanner(System.in);
+    private static final String NEW_LINE = System.lineSeparator();
+    private static final LogWriter writer = new LogWriter(System.out);
+    private static final LogLevel[] levels = new LogLevel[SectionName.values().length];
+
+    static {
+        Arrays.fill(levels, LogLevel.INFO);
+    }
 
     public static void log(SectionName section, String message) {
-        System.out.println(construct(section, message));
+        log(section, LogLevel.INFO, message);
+    }
+
+    public static void log(SectionName section, LogLevel level, String message) {
+        if (isEnabled(section, level)) {
+            writer.offer(section.prefix() + message + NEW_LINE);
+        }
     }
 
     public static void log(SectionName section, String message, Boolean useNewLine) {
         if (useNewLine) {
             log(section, message);
         } else {
-            System.out.print(construct(section, message));
+            writer.offer(section.prefix() + message);
+            writer.flush();
         }
     }
 
+    public static boolean isEnabled(SectionName section, LogLevel level) {
+        return level.compareTo(levels[section.ordinal()]) >= 0;
+    }
+
+    public static void setLevel(SectionName section, LogLevel level) {
+        levels[section.ordinal()] = level;
+    }
+
+    /**
+     * Blocks until everything logged so far is on the terminal. Call it before writing to System.out directly.
+     */
+    public static void flush() {
+        writer.flush();
+    }
+
 
     public static Boolean askYesOrNo(SectionName section, String question) {
         log(section, question + " (Y/N): ", false);
@@ -64,32 +94,4 @@ public class Logger {
             }
         };
     }
-
-    private static String construct(SectionName section, String message) {
-        if (section == SectionName.SILENT) return message;
-
-        StringBuilder builder = new StringBuilder();
-        int sectionLevel = section.level();
-        int sectionSize = section.size();
-        String sectionName = section.section();
-
-        for (int i = 0; i < sectionLevel; i++) {
-            if (i == 0) {
-                builder.append("└");
-            } else {
-                builder.append("─");
-            }
-        }
-
-        builder.append("[");
-        builder.append(sectionName);
-
-        int spaceSize = 8 - sectionSize - sectionLevel;
-        builder.append(" ".repeat(Math.max(0, spaceSize)));
-
-        builder.append("] ");
-        builder.append(message);
-
-        return builder.toString();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package utilities;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Process wide timings and counters, safe to record from any worker thread.
+ * <p>
+ * Timings go into a latency histogram per Phase. Counters are free-form names under a SectionName,
+ * such as NETWORK/requests.
+ */
+public class Metrics {
+    private static final Histogram[] histograms = new Histogram[Phase.values().length];
+    private static final Map<SectionName, Map<String, LongAdder>> counters = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new Histogram();
+    }
+
+    /**
+     * @return A start time to hand back to {@link #record(Phase, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void record(Phase phase, long start) {
+        histograms[phase.ordinal()].add(System.nanoTime() - start);
+    }
+
+    public static void count(SectionName section, String name) {
+        count(section, name, 1);
+    }
+
+    public static void count(SectionName section, String name, long amount) {
+        counters.computeIfAbsent(section, key -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(name, key -> new LongAdder())
+                .add(amount);
+    }
+
+    public static long getCount(SectionName section, String name) {
+        LongAdder counter = counters.getOrDefault(section, Map.of()).get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Logs one line per phase that ran and one per counter, each under its own section
+     */
+    public static void summary() {
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = histograms[phase.ordinal()];
+            long count = histogram.getCount();
+            if (count == 0) continue;
+
+            Logger.log(phase.section(), String.format(Locale.ROOT, "%-17s n=%-6d total=%9.1fms p50=%8.2fms p99=%8.2fms max=%8.2fms",
+                    phase.label(), count, millis(histogram.getTotal()), millis(histogram.percentile(0.50)),
+                    millis(histogram.percentile(0.99)), millis(histogram.getMax())));
+        }
+
+        for (SectionName section : SectionName.values()) {
+            Map<String, LongAdder> named = counters.get(section);
+            if (named == null) continue;
+            for (Map.Entry<String, LongAdder> counter : named.entrySet()) {
+                Logger.log(section, counter.getKey() + "=" + counter.getValue().sum());
+            }
+        }
+    }
+
+    /**
+     * Writes every timing and counter in the Prometheus text exposition format
+     */
+    public static void export(File file) throws IOException {
+        try (Writer writer = new FileWriter(file, UTF_8)) {
+            writer.write("# HELP torch_phase_seconds Time spent in each phase of a run.\n");
+            writer.write("# TYPE torch_phase_seconds summary\n");
+            for (Phase phase : Phase.values()) {
+                Histogram histogram = histograms[phase.ordinal()];
+                String labels = "section=\"" + phase.section().name() + "\",phase=\"" + phase.label() + "\"";
+                writer.write("torch_phase_seconds{" + labels + ",quantile=\"0.5\"} " + seconds(histogram.percentile(0.50)) + "\n");
+                writer.write("torch_phase_seconds{" + labels + ",quantile=\"0.99\"} " + seconds(histogram.percentile(0.99)) + "\n");
+                writer.write("torch_phase_seconds_sum{" + labels + "} " + seconds(histogram.getTotal()) + "\n");
+                writer.write("torch_phase_seconds_count{" + labels + "} " + histogram.getCount() + "\n");
+            }
+
+            writer.write("# HELP torch_events_total Events counted during a run.\n");
+            writer.write("# TYPE torch_events_total counter\n");
+            for (SectionName section : SectionName.values()) {
+                Map<String, LongAdder> named = counters.get(section);
+                if (named == null) continue;
+                for (Map.Entry<String, LongAdder> counter : named.entrySet()) {
+                    writer.write("torch_events_total{section=\"" + section.name() + "\",name=\"" + counter.getKey() + "\"} "
+                            + counter.getValue().sum() + "\n");
+                }
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    /**
+     * Log-linear latency buckets: eight per power of two, so any percentile is within 12.5% of the true value.
+     * Recording is a couple of atomic adds and never allocates.
+     */
+    private static class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int SUB_BITS = 3;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void add(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(index(nanos));
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        long getTotal() {
+            return total.sum();
+        }
+
+        long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @return The upper bound of the bucket holding the given fraction of samples, capped at the max seen
+         */
+        long percentile(double fraction) {
+            long count = getCount();
+            if (count == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), getMax());
+            }
+            return getMax();
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int exponent = (index >>> SUB_BITS) + SUB_BITS - 1;
+            int sub = index & (SUB_BUCKETS - 1);
+            long width = 1L << (exponent - SUB_BITS);
+            return ((SUB_BUCKETS + sub) * width) + width - 1;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package utilities;
+
+/**
+ * The timed stages of a run, each filed under the section that performs it
+ */
+public enum Phase {
+    COOKIE_EXTRACTION(SectionName.COOKIE, "cookie_extraction"),
+    STAFF_FETCH(SectionName.STAFF, "staff_fetch"),
+    STORY_FETCH(SectionName.STORY, "story_fetch"),
+    PARSE(SectionName.STORY, "parse"),
+    TALLY(SectionName.ASSESSOR, "tally"),
+    LOAD(SectionName.MEMORY, "load"),
+    PERSIST(SectionName.MEMORY, "persist");
+
+    private final SectionName section;
+    private final String label;
+
+    Phase(SectionName section, String label) {
+        this.section = section;
+        this.label = label;
+    }
+
+    public SectionName section() {
+        return this.section;
+    }
+
+    public String label() {
+        return this.label;
+    }
+}
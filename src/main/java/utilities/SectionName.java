@@ -7,14 +7,38 @@ public enum SectionName {
     COOKIE("COOKIE", 2),
     STAFF("STAFF", 3),
     STORY("STORY", 3),
+    NETWORK("NETWORK", 2),
     SILENT("", 0);
 
     private final int level;
     private final String section;
+    private final String prefix;
 
     SectionName(String section, int level) {
         this.level = level;
         this.section = section;
+        this.prefix = section.isEmpty() ? "" : buildPrefix();
+    }
+
+    private String buildPrefix() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < level; i++) {
+            if (i == 0) {
+                builder.append("└");
+            } else {
+                builder.append("─");
+            }
+        }
+
+        builder.append("[");
+        builder.append(section);
+
+        int spaceSize = 8 - size() - level;
+        builder.append(" ".repeat(Math.max(0, spaceSize)));
+
+        builder.append("] ");
+        return builder.toString();
     }
 
     public int size() {
@@ -28,4 +52,8 @@ public enum SectionName {
     public String section() {
         return this.section;
     }
+
+    public String prefix() {
+        return this.prefix;
+    }
 }
@@ -1,12 +1,13 @@
 package utilities;
 
-import java.io.StringWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
 
 @SuppressWarnings({"SpellCheckingInspection", "GrazieInspection"})
 public class Unescaper {
     @SuppressWarnings("SpellCheckingInspection")
-    private static final String[][] ESCAPES = {
+    static final String[][] ESCAPES = {
             {"\"", "quot"}, // " - double-quote
             {"&", "amp"}, // & - ampersand
             {"<", "lt"}, // < - less-than
@@ -112,92 +113,184 @@ public class Unescaper {
     };
     private static final int MIN_ESCAPE = 2;
     private static final int MAX_ESCAPE = 6;
-    private static final HashMap<String, CharSequence> lookupMap;
+    private static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+    private static final Trie names = new Trie(ESCAPES);
+    private static final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(StringBuilder::new);
 
-    static {
-        lookupMap = new HashMap<>();
-        for (final CharSequence[] seq : ESCAPES)
-            lookupMap.put(seq[1].toString(), seq[0]);
+    public static String unescape(final String input) {
+        // Most titles have no entities at all, and those come back as they are
+        if (input.indexOf('&') == -1) return input;
+
+        StringBuilder builder = builders.get();
+        builder.setLength(0);
+        return unescape(input, 0, input.length(), builder) ? builder.toString() : input;
     }
 
-    @SuppressWarnings("SpellCheckingInspection")
-    public static String unescape(final String input) {
-        StringWriter writer = null;
-        int len = input.length();
-        int i = 1;
-        int st = 0;
-        while (true) {
-            // look for '&'
-            while (i < len && input.charAt(i - 1) != '&')
+    /**
+     * Decodes input[start, end) onto the end of the builder, without copying anything out of the input first
+     *
+     * @return Whether any entity was decoded
+     */
+    public static boolean unescape(final CharSequence input, final int start, final int end, final StringBuilder builder) {
+        boolean decoded = false;
+        int copied = start;
+        int i = start;
+        // An '&' in the last position can never start an entity
+        while (i < end - 1) {
+            if (input.charAt(i) != '&') {
                 i++;
-            if (i >= len)
-                break;
+                continue;
+            }
 
             // found '&', look for ';'
-            int j = i;
-            while (j < len && j < i + MAX_ESCAPE + 1 && input.charAt(j) != ';')
-                j++;
-            if (j == len || j < i + MIN_ESCAPE || j == i + MAX_ESCAPE + 1) {
+            int nameStart = i + 1;
+            int semicolon = -1;
+            int searchEnd = Math.min(end, nameStart + MAX_ESCAPE + 1);
+            for (int j = nameStart; j < searchEnd; j++) {
+                if (input.charAt(j) == ';') {
+                    semicolon = j;
+                    break;
+                }
+            }
+            if (semicolon < nameStart + MIN_ESCAPE) {
                 i++;
                 continue;
             }
 
-            // found escape
-            if (input.charAt(i) == '#') {
+            if (input.charAt(nameStart) == '#') {
                 // numeric escape
-                int k = i + 1;
-                int radix = 10;
-
-                final char firstChar = input.charAt(k);
-                if (firstChar == 'x' || firstChar == 'X') {
-                    k++;
-                    radix = 16;
-                }
-
-                try {
-                    int entityValue = Integer.parseInt(input.substring(k, j), radix);
-
-                    if (writer == null)
-                        writer = new StringWriter(input.length());
-                    writer.append(input.substring(st, i - 1));
-
-                    if (entityValue > 0xFFFF) {
-                        final char[] chrs = Character.toChars(entityValue);
-                        writer.write(chrs[0]);
-                        writer.write(chrs[1]);
-                    } else {
-                        writer.write(entityValue);
-                    }
-
-                } catch (NumberFormatException ex) {
+                int value = parseNumber(input, nameStart + 1, semicolon);
+                if (value == NOT_A_NUMBER) {
                     i++;
                     continue;
                 }
+
+                builder.append(input, copied, i);
+                if (value > 0xFFFF) {
+                    builder.appendCodePoint(value);
+                } else {
+                    builder.append((char) value);
+                }
             } else {
                 // named escape
-                CharSequence value = lookupMap.get(input.substring(i, j));
+                String value = names.find(input, nameStart, semicolon);
                 if (value == null) {
                     i++;
                     continue;
                 }
 
-                if (writer == null)
-                    writer = new StringWriter(input.length());
-                writer.append(input.substring(st, i - 1));
-
-                writer.append(value);
+                builder.append(input, copied, i);
+                builder.append(value);
             }
 
             // skip escape
-            st = j + 1;
-            i = st;
+            decoded = true;
+            copied = semicolon + 1;
+            i = copied;
+        }
+
+        builder.append(input, copied, end);
+        return decoded;
+    }
+
+    /**
+     * Reads a decimal number, or a hex one after an 'x', with the same leniency as Integer.parseInt
+     */
+    private static int parseNumber(CharSequence input, int start, int end) {
+        int radix = 10;
+        char first = input.charAt(start);
+        if (first == 'x' || first == 'X') {
+            start++;
+            radix = 16;
+        }
+
+        boolean negative = false;
+        if (start < end && (input.charAt(start) == '-' || input.charAt(start) == '+')) {
+            negative = input.charAt(start) == '-';
+            start++;
         }
+        if (start == end) return NOT_A_NUMBER;
 
-        if (writer != null) {
-            writer.append(input.substring(st, len));
-            return writer.toString();
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(input.charAt(i), radix);
+            if (digit < 0) return NOT_A_NUMBER;
+            value = value * radix + digit;
         }
-        return input;
+        return negative ? -value : value;
     }
 
-}
\ No newline at end of file
+    /**
+     * The entity names of ESCAPES compiled into flat arrays. Node n's edges are
+     * edgeChars[edgeStart[n]..edgeStart[n + 1]), sorted so each step is a binary search.
+     */
+    private static class Trie {
+        private final int[] edgeStart;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        private final String[] values;
+
+        Trie(String[][] escapes) {
+            ArrayList<TreeMap<Character, Integer>> children = new ArrayList<>();
+            ArrayList<String> found = new ArrayList<>();
+            children.add(new TreeMap<>());
+            found.add(null);
+
+            for (String[] escape : escapes) {
+                int node = 0;
+                for (char c : escape[1].toCharArray()) {
+                    Integer child = children.get(node).get(c);
+                    if (child == null) {
+                        child = children.size();
+                        children.get(node).put(c, child);
+                        children.add(new TreeMap<>());
+                        found.add(null);
+                    }
+                    node = child;
+                }
+                found.set(node, escape[0]);
+            }
+
+            int nodes = children.size();
+            edgeStart = new int[nodes + 1];
+            edgeChars = new char[nodes - 1];
+            edgeTargets = new int[nodes - 1];
+            values = found.toArray(new String[0]);
+
+            int edge = 0;
+            for (int node = 0; node < nodes; node++) {
+                edgeStart[node] = edge;
+                for (Map.Entry<Character, Integer> child : children.get(node).entrySet()) {
+                    edgeChars[edge] = child.getKey();
+                    edgeTargets[edge] = child.getValue();
+                    edge++;
+                }
+            }
+            edgeStart[nodes] = edge;
+        }
+
+        String find(CharSequence input, int start, int end) {
+            int node = 0;
+            for (int i = start; i < end; i++) {
+                int low = edgeStart[node];
+                int high = edgeStart[node + 1] - 1;
+                char c = input.charAt(i);
+                int next = -1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    if (edgeChars[middle] < c) {
+                        low = middle + 1;
+                    } else if (edgeChars[middle] > c) {
+                        high = middle - 1;
+                    } else {
+                        next = edgeTargets[middle];
+                        break;
+                    }
+                }
+                if (next == -1) return null;
+                node = next;
+            }
+            return values[node];
+        }
+    }
+}
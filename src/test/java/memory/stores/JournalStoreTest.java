@@ -0,0 +1,180 @@
+package memory.stores;
+
+import memory.ListType;
+import memory.Lists;
+import memory.types.Date;
+import memory.types.Story;
+import org.jdom2.JDOMException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalStoreTest {
+    // Magic and generation
+    private static final int FILE_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dropsTruncatedTail() throws Exception {
+        Path crashed = journalOf("one", "two", "three");
+        File journal = crashed.resolve("memory.journal").toFile();
+        long intactEnd = entryEnds(journal).get(1);
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        Lists lists = new Lists();
+        JournalStore store = storeIn(crashed);
+        store.load(lists);
+        assertEquals(List.of("one", "two"), titles(lists));
+        assertEquals(intactEnd, journal.length());
+
+        // The journal keeps going from where the intact entries end
+        lists.getStoryManager().add(story("four"));
+        store.save(lists, ListType.STORY_LIST);
+        store.close(lists);
+        assertEquals(List.of("one", "two", "four"), titles(reload(crashed)));
+    }
+
+    @Test
+    void dropsEntriesFromBadChecksumOn() throws Exception {
+        Path crashed = journalOf("one", "two", "three");
+        File journal = crashed.resolve("memory.journal").toFile();
+        List<Long> ends = entryEnds(journal);
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            // Flip the last byte of the second entry, leaving its length intact
+            long position = ends.get(1) - 1;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        Lists lists = new Lists();
+        JournalStore store = storeIn(crashed);
+        store.load(lists);
+        assertEquals(List.of("one"), titles(lists));
+        assertEquals((long) ends.get(0), journal.length());
+        store.close(lists);
+    }
+
+    @Test
+    void ignoresJournalOfAnotherGeneration() throws Exception {
+        Path path = directory.resolve("memory");
+        Files.createDirectories(path);
+        Lists lists = new Lists();
+        JournalStore store = storeIn(path);
+        store.load(lists);
+        lists.getStoryManager().add(story("one"));
+        store.save(lists, ListType.STORY_LIST);
+        byte[] stale = Files.readAllBytes(path.resolve("memory.journal"));
+
+        // Compacting folds the entry into the next snapshot, as if we crashed before the journal was reset
+        store.close(lists);
+        Files.write(path.resolve("memory.journal"), stale);
+
+        Lists reloaded = new Lists();
+        JournalStore next = storeIn(path);
+        next.load(reloaded);
+        assertEquals(List.of("one"), titles(reloaded));
+        assertEquals(FILE_HEADER_SIZE, path.resolve("memory.journal").toFile().length());
+        next.close(reloaded);
+    }
+
+    @Test
+    void replaysReplacedListWhole() throws Exception {
+        Path path = journalOf("one", "two");
+        Lists lists = new Lists();
+        JournalStore store = storeIn(path);
+        store.load(lists);
+
+        lists.getStoryManager().clearElements();
+        lists.getStoryManager().add(story("three"));
+        lists.getStoryManager().add(story("four"));
+        lists.getStoryManager().add(story("five"));
+        store.replace(lists, ListType.STORY_LIST);
+
+        Path crashed = copy(path, "replaced");
+        store.close(lists);
+        assertEquals(List.of("three", "four", "five"), titles(reload(crashed)));
+    }
+
+    /**
+     * A memory directory left by a run that saved each title as its own journal entry, then crashed
+     */
+    private Path journalOf(String... titles) throws IOException, JDOMException {
+        Path path = directory.resolve("memory");
+        Files.createDirectories(path);
+        Lists lists = new Lists();
+        JournalStore store = storeIn(path);
+        store.load(lists);
+        for (String title : titles) {
+            lists.getStoryManager().add(story(title));
+            store.save(lists, ListType.STORY_LIST);
+        }
+
+        Path crashed = copy(path, "crashed");
+        store.close(lists);
+        return crashed;
+    }
+
+    private Path copy(Path path, String name) throws IOException {
+        Path copy = directory.resolve(name);
+        Files.createDirectories(copy);
+        Files.copy(path.resolve("memory.bin"), copy.resolve("memory.bin"));
+        Files.copy(path.resolve("memory.journal"), copy.resolve("memory.journal"));
+        return copy;
+    }
+
+    private static Lists reload(Path path) throws IOException, JDOMException {
+        Lists lists = new Lists();
+        JournalStore store = storeIn(path);
+        store.load(lists);
+        store.close(lists);
+        return lists;
+    }
+
+    private static JournalStore storeIn(Path path) {
+        BinaryStore snapshot = new BinaryStore(path.resolve("memory.bin").toFile(), null);
+        return new JournalStore(path.resolve("memory.journal").toFile(), snapshot);
+    }
+
+    /**
+     * @return The offset just past each entry of the journal
+     */
+    private static List<Long> entryEnds(File journal) throws IOException {
+        ArrayList<Long> ends = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(journal, "r")) {
+            long position = FILE_HEADER_SIZE;
+            while (position < file.length()) {
+                file.seek(position);
+                position += Integer.BYTES * 2 + file.readInt();
+                ends.add(position);
+            }
+        }
+        return ends;
+    }
+
+    private static Story story(String title) {
+        return new Story(7, title, new Date(3, 24));
+    }
+
+    private static List<String> titles(Lists lists) {
+        ArrayList<String> titles = new ArrayList<>();
+        for (Story story : lists.getStoryManager().getElements()) {
+            titles.add(story.getTitle());
+        }
+        return titles;
+    }
+}
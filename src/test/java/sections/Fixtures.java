@@ -0,0 +1,23 @@
+package sections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the recorded edit.php pages under src/test/resources/fixtures, for the tests and the benchmarks alike
+ */
+public class Fixtures {
+    public static final String[] PAGES = {"edit-empty.html", "edit-5.html", "edit-20.html", "edit-100.html"};
+
+    public static String page(String name) {
+        try (InputStream stream = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (stream == null) throw new IllegalArgumentException("No fixture named " + name);
+            return new String(stream.readAllBytes(), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package sections;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PostTokenizerTest {
+    @Test
+    void matchesSubstringLoopOnFixtures() {
+        for (String name : Fixtures.PAGES) {
+            String body = Fixtures.page(name);
+            assertEquals(substringLoop(body), tokenize(body), name);
+        }
+    }
+
+    @Test
+    void matchesSubstringLoopAcrossConcatenatedPages() {
+        StringBuilder body = new StringBuilder();
+        for (String name : Fixtures.PAGES) {
+            body.append(Fixtures.page(name));
+        }
+        List<String> expected = substringLoop(body.toString());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, tokenize(body.toString()));
+    }
+
+    @Test
+    void readsCharBuffersLikeStrings() {
+        String body = Fixtures.page("edit-20.html");
+        assertEquals(tokenize(body), tokenize(CharBuffer.wrap(body)));
+    }
+
+    private static List<String> tokenize(CharSequence body) {
+        ArrayList<String> posts = new ArrayList<>();
+        PostTokenizer tokenizer = new PostTokenizer(body);
+        while (tokenizer.next()) {
+            posts.add(tokenizer.title() + "|" + tokenizer.isDraft() + "|" + tokenizer.year() + "|" + tokenizer.month());
+        }
+        return posts;
+    }
+
+    /**
+     * The loop StoryScraper.scrape used before PostTokenizer, kept as the reference it has to match
+     */
+    private static List<String> substringLoop(String responseBody) {
+        ArrayList<String> posts = new ArrayList<>();
+        while (responseBody.contains("post_title")) {
+            String postSep = "<div class=\"post_title\">";
+            int postSepPos = responseBody.indexOf(postSep);
+            if (postSepPos == -1) {
+                break;
+            }
+            int postLength = postSepPos + postSep.length();
+            String[] split = responseBody.substring(postLength, postLength + 500).split("<", 2);
+            String title = split[0];
+
+            String draftSep = "<div class=\"_status\">";
+            int draftSepPos = split[1].indexOf(draftSep);
+            int draftLength = draftSepPos + draftSep.length();
+            String draft = split[1].substring(draftLength).split("<", 2)[0];
+
+            String yearSep = "<div class=\"aa\">";
+            int yearSepPos = split[1].indexOf(yearSep);
+            int yearLength = yearSepPos + yearSep.length();
+            int year = Integer.parseInt(split[1].substring(yearLength).split("<", 2)[0].substring(2, 4));
+
+            String monthSep = "<div class=\"mm\">";
+            int monthSepPos = split[1].indexOf(monthSep);
+            int monthLength = monthSepPos + monthSep.length();
+            int month = Integer.parseInt(split[1].substring(monthLength).split("<", 2)[0]);
+
+            responseBody = responseBody.substring(postSepPos + 500);
+
+            posts.add(title + "|" + draft.equals("draft") + "|" + year + "|" + month);
+        }
+        return posts;
+    }
+}
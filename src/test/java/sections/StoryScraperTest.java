@@ -0,0 +1,100 @@
+package sections;
+
+import com.sun.net.httpserver.HttpServer;
+import memory.types.Date;
+import memory.types.Mark;
+import memory.types.Staff;
+import memory.types.Story;
+import network.RateLimiter;
+import network.Response;
+import network.RetryPolicy;
+import network.SessionExpiredException;
+import network.Transport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoryScraperTest {
+    private static final String HOST = "https://shsthetorch.com";
+
+    @Test
+    void loginPageWithoutRefresherThrows() throws IOException {
+        HttpServer server = loggedOutServer();
+        try {
+            Transport transport = transport(server);
+            assertThrows(SessionExpiredException.class, () -> transport.get(PageCursor.listing("shsthetorch.com", 117) + 1));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void loggedOutSweepLeavesCachedStoriesAlone() throws IOException, URISyntaxException {
+        HttpServer server = loggedOutServer();
+        try {
+            ArrayList<Staff> staffList = new ArrayList<>(List.of(new Staff(117, "Ada Lovelace"), new Staff(118, "Alan Turing")));
+            HashMap<Integer, Mark> marks = new HashMap<>();
+            marks.put(117, new Mark(new Story(117, "Known", new Date(3, 24))));
+
+            for (int workers : new int[]{1, 2}) {
+                StoryScraper scraper = new StoryScraper(transport(server), workers, workers);
+                ArrayList<Story> found = scraper.run(staffList, marks);
+
+                // No author counts as scraped, so Assessor keeps every cached story and then ends the run
+                assertTrue(found.isEmpty(), "workers " + workers);
+                assertEquals(Set.of(117, 118), scraper.getFailed(), "workers " + workers);
+                assertTrue(scraper.getMissedMarks().isEmpty(), "workers " + workers);
+                assertNotNull(scraper.getExpired(), "workers " + workers);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Sends every listing to the login page, as WordPress does once the cookies stop working
+     */
+    private static HttpServer loggedOutServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/wp-admin/", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/wp-login.php?redirect_to=edit.php");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/wp-login.php", exchange -> {
+            byte[] body = "<form id=\"loginform\"></form>".getBytes(UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * A transport with no refresher that sends requests for The Torch to the local server instead
+     */
+    private static Transport transport(HttpServer server) {
+        String local = "http://localhost:" + server.getAddress().getPort();
+        return new Transport("wordpress_logged_in_x=stale", null, new RateLimiter(1000, 1000), RetryPolicy.NONE) {
+            @Override
+            public Response get(String url) throws IOException, URISyntaxException {
+                return super.get(url.replace(HOST, local));
+            }
+        };
+    }
+}
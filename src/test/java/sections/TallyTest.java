@@ -0,0 +1,68 @@
+package sections;
+
+import memory.types.Date;
+import memory.types.Staff;
+import memory.types.Story;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TallyTest {
+    @Test
+    void parallelMatchesSerialAboveThreshold() {
+        ArrayList<Staff> staffList = new ArrayList<>();
+        for (int id = 100; id < 300; id += 2) {
+            staffList.add(new Staff(id, "Staff " + id));
+        }
+
+        // Some stories are by staff who are no longer on the list, and have to be left out by both
+        Random random = new Random(20240301);
+        ArrayList<Story> storyList = new ArrayList<>();
+        for (int i = 0; i < Tally.PARALLEL_THRESHOLD + 12_345; i++) {
+            int staffID = 90 + random.nextInt(220);
+            storyList.add(new Story(staffID, "Story " + i, new Date(random.nextInt(12) + 1, 18 + random.nextInt(7))));
+        }
+
+        Tally serial = Tally.of(staffList, storyList, false);
+        Tally parallel = Tally.of(staffList, storyList, true);
+
+        assertEquals(serial.getFirstMonth(), parallel.getFirstMonth());
+        assertEquals(serial.getLastMonth(), parallel.getLastMonth());
+        assertEquals(serial.total(), parallel.total());
+        for (int row = 0; row < serial.rows(); row++) {
+            assertEquals(serial.rowTotal(row), parallel.rowTotal(row), "row " + row);
+            for (int month = serial.getFirstMonth(); month <= serial.getLastMonth(); month++) {
+                assertEquals(serial.count(row, month), parallel.count(row, month), "row " + row + ", month " + month);
+            }
+        }
+        for (int month = serial.getFirstMonth(); month <= serial.getLastMonth(); month++) {
+            assertEquals(serial.columnTotal(month), parallel.columnTotal(month), "month " + month);
+        }
+    }
+
+    @Test
+    void countsOnlyListedStaff() {
+        ArrayList<Staff> staffList = new ArrayList<>();
+        staffList.add(new Staff(5, "Five"));
+        staffList.add(new Staff(9, "Nine"));
+
+        ArrayList<Story> storyList = new ArrayList<>();
+        storyList.add(new Story(5, "A", new Date(1, 24)));
+        storyList.add(new Story(5, "B", new Date(3, 24)));
+        storyList.add(new Story(7, "C", new Date(3, 24)));
+        storyList.add(new Story(9, "D", new Date(3, 24)));
+
+        Tally tally = Tally.of(staffList, storyList);
+        int march = Tally.monthIndex(3, 24);
+        assertEquals(Tally.monthIndex(1, 24), tally.getFirstMonth());
+        assertEquals(march, tally.getLastMonth());
+        assertEquals(3, tally.total());
+        assertEquals(2, tally.rowTotal(tally.row(5)));
+        assertEquals(1, tally.count(tally.row(9), march));
+        assertEquals(-1, tally.row(7));
+        assertEquals(2, tally.columnTotal(march));
+    }
+}
@@ -0,0 +1,178 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+import sections.Fixtures;
+import sections.PostTokenizer;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnescaperTest {
+    private static final HashMap<String, CharSequence> lookupMap = new HashMap<>();
+
+    static {
+        for (final CharSequence[] seq : Unescaper.ESCAPES)
+            lookupMap.put(seq[1].toString(), seq[0]);
+    }
+
+    @Test
+    void matchesOldDecoderOnFixtureTitles() {
+        int titles = 0;
+        for (String name : Fixtures.PAGES) {
+            PostTokenizer posts = new PostTokenizer(Fixtures.page(name));
+            while (posts.next()) {
+                assertMatches(posts.title());
+                assertEquals(Unescaper.unescape(posts.title()), posts.unescapedTitle());
+                titles++;
+            }
+        }
+        assertTrue(titles > 0);
+    }
+
+    @Test
+    void matchesOldDecoderOnEveryEntity() {
+        for (String[] escape : Unescaper.ESCAPES) {
+            assertMatches("&" + escape[1] + ";");
+            assertMatches("a&" + escape[1] + ";b&" + escape[1]);
+            assertMatches("&" + escape[1].toUpperCase() + ";");
+        }
+    }
+
+    @Test
+    void matchesOldDecoderOnEdgeCases() {
+        String[] inputs = {
+                "", "&", "&;", "&&", ";&", "&a;", "&amp", "&amp;", "&&amp;;", "&amp;amp;", "x&amp;",
+                "&#;", "&#x;", "&#X41;", "&#65;", "&#-65;", "&#+65;", "&#x-1;", "&#+;", "&#65", "&#1234567;",
+                "&#99999;", "&#x1F600;", "&#xFFFF;", "&#x10000;", "&#٣;", "&#xＦ;", "&Agrave;&agrave;",
+                "&nbspx;", "&frac14;&frac12;", "&thetasym;", "&amp;&#8217;&#x2014;&quot;",
+        };
+        for (String input : inputs) {
+            assertMatches(input);
+        }
+    }
+
+    @Test
+    void matchesOldDecoderOnFuzzedInput() {
+        String[] pieces = {"&", "#", ";", "x", "X", "-", "+", "0", "1", "9", "F", "a", "b", "٣", "é", " ",
+                "amp", "lt", "nbsp", "frac12", "Aring", "yuml", "&#", "&#x", "&amp;", "&#8217;"};
+        Random random = new Random(1998);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertMatches(input.toString());
+        }
+    }
+
+    @Test
+    void decodesRangesInPlace() {
+        String input = "<div>Tom &amp; Jerry&#8217;s</div>";
+        StringBuilder builder = new StringBuilder("> ");
+        assertTrue(Unescaper.unescape(input, 5, input.length() - 6, builder));
+        assertEquals("> Tom & Jerry’s", builder.toString());
+
+        builder.setLength(0);
+        assertFalse(Unescaper.unescape(input, 0, 5, builder));
+        assertEquals("<div>", builder.toString());
+    }
+
+    private static void assertMatches(String input) {
+        assertEquals(oldUnescape(input), Unescaper.unescape(input), input);
+
+        StringBuilder builder = new StringBuilder();
+        Unescaper.unescape(input, 0, input.length(), builder);
+        assertEquals(oldUnescape(input), builder.toString(), input);
+    }
+
+    /**
+     * The decoder Unescaper replaced with its trie, kept as the reference it has to match
+     */
+    @SuppressWarnings("SpellCheckingInspection")
+    private static String oldUnescape(final String input) {
+        final int MIN_ESCAPE = 2;
+        final int MAX_ESCAPE = 6;
+        StringWriter writer = null;
+        int len = input.length();
+        int i = 1;
+        int st = 0;
+        while (true) {
+            // look for '&'
+            while (i < len && input.charAt(i - 1) != '&')
+                i++;
+            if (i >= len)
+                break;
+
+            // found '&', look for ';'
+            int j = i;
+            while (j < len && j < i + MAX_ESCAPE + 1 && input.charAt(j) != ';')
+                j++;
+            if (j == len || j < i + MIN_ESCAPE || j == i + MAX_ESCAPE + 1) {
+                i++;
+                continue;
+            }
+
+            // found escape
+            if (input.charAt(i) == '#') {
+                // numeric escape
+                int k = i + 1;
+                int radix = 10;
+
+                final char firstChar = input.charAt(k);
+                if (firstChar == 'x' || firstChar == 'X') {
+                    k++;
+                    radix = 16;
+                }
+
+                try {
+                    int entityValue = Integer.parseInt(input.substring(k, j), radix);
+
+                    if (writer == null)
+                        writer = new StringWriter(input.length());
+                    writer.append(input.substring(st, i - 1));
+
+                    if (entityValue > 0xFFFF) {
+                        final char[] chrs = Character.toChars(entityValue);
+                        writer.write(chrs[0]);
+                        writer.write(chrs[1]);
+                    } else {
+                        writer.write(entityValue);
+                    }
+
+                } catch (NumberFormatException ex) {
+                    i++;
+                    continue;
+                }
+            } else {
+                // named escape
+                CharSequence value = lookupMap.get(input.substring(i, j));
+                if (value == null) {
+                    i++;
+                    continue;
+                }
+
+                if (writer == null)
+                    writer = new StringWriter(input.length());
+                writer.append(input.substring(st, i - 1));
+
+                writer.append(value);
+            }
+
+            // skip escape
+            st = j + 1;
+            i = st;
+        }
+
+        if (writer != null) {
+            writer.append(input.substring(st, len));
+            return writer.toString();
+        }
+        return input;
+    }
+}